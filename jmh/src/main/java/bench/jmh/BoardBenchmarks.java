@@ -0,0 +1,42 @@
+package bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+import model.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading, writing and copying a {@link Board}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmarks {
+
+  @Benchmark
+  public int get(Corpus corpus) {
+    int i = corpus.next();
+    return corpus.boards[i].get(i & 31);
+  }
+
+  @Benchmark
+  public int set(Corpus corpus) {
+    int i = corpus.next();
+    Board board = corpus.boards[i];
+    int index = i & 31;
+    board.set(index, board.get(index));
+    return index;
+  }
+
+  @Benchmark
+  public Board copy(Corpus corpus) {
+    return corpus.boards[corpus.next()].copy();
+  }
+}
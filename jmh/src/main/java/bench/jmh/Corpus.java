@@ -0,0 +1,93 @@
+package bench.jmh;
+
+import bench.CoreBenchmarks;
+import java.nio.ByteBuffer;
+import java.util.List;
+import logic.BitboardGenerator;
+import model.Board;
+import model.Game;
+import model.GameCodec;
+import model.MoveList;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The positions the benchmarks run over: the same corpus of random-game
+ * positions as {@link CoreBenchmarks}, with the inputs each benchmark needs
+ * worked out before measuring. Each benchmark call takes the next position
+ * with {@link #next}, so branches see the whole corpus rather than one
+ * position.
+ */
+@State(Scope.Thread)
+public class Corpus {
+
+  /** The number of positions, a power of two. */
+  public static final int SIZE = CoreBenchmarks.CORPUS_SIZE;
+
+  public Game[] games;
+  public Board[] boards;
+  public String[] states;
+  public int[][] hops;
+  public int[] pieces;
+  public long[] firstMoves;
+
+  /** The black, white and king masks of each position, three ints apiece. */
+  public int[] positions;
+
+  /** Every position encoded with {@link GameCodec}, one after another. */
+  public ByteBuffer encoded;
+
+  /** A buffer to encode one position into. */
+  public ByteBuffer buffer;
+
+  /** A reusable list for move generation. */
+  public MoveList moves;
+
+  /** A game to decode or set states into. */
+  public Game scratch;
+
+  /** The index of the next position. */
+  private int cursor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<Game> corpus = CoreBenchmarks.createCorpus(SIZE, CoreBenchmarks.SEED);
+    games = corpus.toArray(new Game[0]);
+    boards = new Board[SIZE];
+    states = new String[SIZE];
+    hops = new int[SIZE][];
+    pieces = new int[SIZE];
+    firstMoves = new long[SIZE];
+    positions = new int[3 * SIZE];
+    encoded = ByteBuffer.allocate(SIZE * GameCodec.SIZE);
+    buffer = ByteBuffer.allocate(GameCodec.SIZE);
+    moves = new MoveList();
+    scratch = new Game();
+    for (int i = 0; i < SIZE; i++) {
+      Game game = games[i];
+      Board board = game.getBoard();
+      boards[i] = board;
+      states[i] = game.getGameState();
+      hops[i] = CoreBenchmarks.firstHop(game);
+      BitboardGenerator.getMoves(board, game.isP1Turn(), game.getSkipIndex(), moves);
+      firstMoves[i] = moves.get(0);
+      pieces[i] = Integer.numberOfTrailingZeros(game.isP1Turn() ?
+          board.getBlackBits() : board.getWhiteBits());
+      positions[3 * i] = board.getBlackBits();
+      positions[3 * i + 1] = board.getWhiteBits();
+      positions[3 * i + 2] = board.getKingBits();
+      GameCodec.encode(game, encoded);
+    }
+  }
+
+  /**
+   * Gets the index of the next position, going round the corpus.
+   */
+  public int next() {
+    int i = cursor;
+    cursor = (i + 1) & (SIZE - 1);
+    return i;
+  }
+}
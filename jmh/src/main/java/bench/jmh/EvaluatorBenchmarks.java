@@ -0,0 +1,49 @@
+package bench.jmh;
+
+import engine.DefaultEvaluator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks scoring positions with the {@link DefaultEvaluator}, one at a
+ * time and in one batch over the corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EvaluatorBenchmarks {
+
+  private final DefaultEvaluator evaluator = DefaultEvaluator.DEFAULT;
+
+  private final int[] scores = new int[Corpus.SIZE];
+
+  @Benchmark
+  public int evaluate(Corpus corpus) {
+    int j = 3 * corpus.next();
+    int[] positions = corpus.positions;
+    return evaluator.evaluate(positions[j], positions[j + 1], positions[j + 2], true);
+  }
+
+  /**
+   * Scores the whole corpus in one call, reported per position.
+   */
+  @Benchmark
+  @OperationsPerInvocation(Corpus.SIZE)
+  public void evaluateBatch(Corpus corpus, Blackhole blackhole) {
+    evaluator.evaluate(corpus.positions, Corpus.SIZE, scores);
+    blackhole.consume(scores);
+  }
+}
@@ -0,0 +1,90 @@
+package bench.jmh;
+
+import java.util.concurrent.TimeUnit;
+import model.Game;
+import model.GameCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks playing moves on a {@link Game}, checking for game over and
+ * converting game states.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBenchmarks {
+
+  @Benchmark
+  public Game copy(Corpus corpus) {
+    return corpus.games[corpus.next()].copy();
+  }
+
+  @Benchmark
+  public boolean copyAndMove(Corpus corpus) {
+    int i = corpus.next();
+    Game game = corpus.games[i].copy();
+    int[] hop = corpus.hops[i];
+    return game.move(hop[0], hop[1]);
+  }
+
+  @Benchmark
+  public long makeMoveAndUnmakeMove(Corpus corpus) {
+    int i = corpus.next();
+    Game game = corpus.games[i];
+    long move = corpus.firstMoves[i];
+    long undo = game.makeMove(move);
+    game.unmakeMove(move, undo);
+    return undo;
+  }
+
+  /**
+   * Checks for game over in positions whose legal moves are already cached
+   * by earlier calls.
+   */
+  @Benchmark
+  public boolean isGameOverCached(Corpus corpus) {
+    return corpus.games[corpus.next()].isGameOver();
+  }
+
+  /**
+   * Checks for game over just after decoding a position, which drops the
+   * cached legal moves. Subtract {@link #gameCodecDecode} for the cost of a
+   * cold check.
+   */
+  @Benchmark
+  public boolean gameCodecDecodeAndIsGameOver(Corpus corpus) {
+    GameCodec.decode(corpus.encoded, corpus.next() * GameCodec.SIZE, corpus.scratch);
+    return corpus.scratch.isGameOver();
+  }
+
+  @Benchmark
+  public String getGameState(Corpus corpus) {
+    return corpus.games[corpus.next()].getGameState();
+  }
+
+  @Benchmark
+  public int setGameState(Corpus corpus) {
+    corpus.scratch.setGameState(corpus.states[corpus.next()]);
+    return corpus.scratch.getSkipIndex();
+  }
+
+  @Benchmark
+  public byte gameCodecEncode(Corpus corpus) {
+    GameCodec.encode(corpus.games[corpus.next()], corpus.buffer, 0);
+    return corpus.buffer.get(12);
+  }
+
+  @Benchmark
+  public int gameCodecDecode(Corpus corpus) {
+    GameCodec.decode(corpus.encoded, corpus.next() * GameCodec.SIZE, corpus.scratch);
+    return corpus.scratch.getSkipIndex();
+  }
+}
@@ -0,0 +1,66 @@
+package bench.jmh;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import logic.BitboardGenerator;
+import logic.MoveGenerator;
+import logic.MoveLogic;
+import model.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks move generation and validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoveBenchmarks {
+
+  @Benchmark
+  public List<Point> moveGeneratorGetMoves(Corpus corpus) {
+    int i = corpus.next();
+    return MoveGenerator.getMoves(corpus.boards[i], corpus.pieces[i]);
+  }
+
+  @Benchmark
+  public List<Point> moveGeneratorGetSkips(Corpus corpus) {
+    int i = corpus.next();
+    return MoveGenerator.getSkips(corpus.boards[i], corpus.pieces[i]);
+  }
+
+  @Benchmark
+  public int moveGeneratorGetMovesIntoList(Corpus corpus) {
+    int i = corpus.next();
+    return MoveGenerator.getMoves(corpus.boards[i], corpus.pieces[i], corpus.moves);
+  }
+
+  @Benchmark
+  public int moveGeneratorGetSkipsIntoList(Corpus corpus) {
+    int i = corpus.next();
+    return MoveGenerator.getSkips(corpus.boards[i], corpus.pieces[i], corpus.moves);
+  }
+
+  @Benchmark
+  public int bitboardGeneratorGetMoves(Corpus corpus) {
+    int i = corpus.next();
+    Game game = corpus.games[i];
+    return BitboardGenerator.getMoves(corpus.boards[i], game.isP1Turn(), game.getSkipIndex(),
+      corpus.moves);
+  }
+
+  @Benchmark
+  public boolean moveLogicIsValidMove(Corpus corpus) {
+    int i = corpus.next();
+    int[] hop = corpus.hops[i];
+    return MoveLogic.isValidMove(corpus.games[i], hop[0], hop[1]);
+  }
+}
@@ -0,0 +1,195 @@
+package bench;
+
+import engine.DefaultEvaluator;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import logic.BitboardGenerator;
+import logic.MoveGenerator;
+import logic.MoveLogic;
+import model.Board;
+import model.Game;
+import model.GameCodec;
+import model.MoveList;
+
+/**
+ * Benchmarks the hot paths of the board, move generation, move validation
+ * and game classes over a fixed corpus of positions, reporting the time and
+ * heap allocated per operation. Run it after changing any of these classes to
+ * catch regressions.
+ *
+ * <p>This is a quick smoke test that needs nothing but a JDK. All rows run in
+ * one JVM through one shared call site, so they affect each other's
+ * profiles; for numbers to trust or compare, use the JMH benchmarks in the
+ * {@code jmh} module, which run the same corpus in forked JVMs.
+ *
+ * <p>Usage: {@code java bench.CoreBenchmarks [filter regex] [iteration ms]}
+ */
+public class CoreBenchmarks {
+
+  /** The number of positions in the corpus, shared with the JMH benchmarks. */
+  public static final int CORPUS_SIZE = 1024;
+
+  /** The seed of the random games the corpus is taken from. */
+  public static final long SEED = 20240501L;
+
+  public static void main(String[] args) {
+    String filter = args.length > 0 ? args[0] : null;
+    long millis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+    Harness harness = new Harness(3, 5, millis, filter);
+    addBenchmarks(harness, createCorpus(CORPUS_SIZE, SEED));
+    harness.run();
+  }
+
+  /**
+   * Adds a benchmark for each hot path.
+   */
+  public static void addBenchmarks(Harness harness, List<Game> corpus) {
+    int n = corpus.size();
+    MoveList moves = new MoveList();
+    Board[] boards = new Board[n];
+    String[] states = new String[n];
+    int[][] hops = new int[n][];
+    int[] pieces = new int[n];
+    long[] firstMoves = new long[n];
+    for (int i = 0; i < n; i++) {
+      Game game = corpus.get(i);
+      boards[i] = game.getBoard();
+      states[i] = game.getGameState();
+      hops[i] = firstHop(game);
+      BitboardGenerator.getMoves(boards[i], game.isP1Turn(), game.getSkipIndex(), moves);
+      firstMoves[i] = moves.get(0);
+      pieces[i] = Integer.numberOfTrailingZeros(game.isP1Turn() ?
+          boards[i].getBlackBits() : boards[i].getWhiteBits());
+    }
+    Game scratch = new Game();
+
+    harness.add("Board.get", i -> boards[i % n].get(i & 31));
+    harness.add("Board.set", i -> {
+      Board b = boards[i % n];
+      int index = i & 31;
+      b.set(index, b.get(index));
+      return index;
+    });
+    harness.add("Board.copy", i -> boards[i % n].copy().getOccupiedBits());
+    harness.add("MoveGenerator.getMoves", i ->
+        MoveGenerator.getMoves(boards[i % n], pieces[i % n]).size());
+    harness.add("MoveGenerator.getSkips", i ->
+        MoveGenerator.getSkips(boards[i % n], pieces[i % n]).size());
+    harness.add("MoveGenerator.getMoves(MoveList)", i ->
+        MoveGenerator.getMoves(boards[i % n], pieces[i % n], moves));
+    harness.add("MoveGenerator.getSkips(MoveList)", i ->
+        MoveGenerator.getSkips(boards[i % n], pieces[i % n], moves));
+    harness.add("BitboardGenerator.getMoves", i -> {
+      Game game = corpus.get(i % n);
+      return BitboardGenerator.getMoves(boards[i % n], game.isP1Turn(), game.getSkipIndex(), moves);
+    });
+    harness.add("MoveLogic.isValidMove", i -> {
+      int[] hop = hops[i % n];
+      return MoveLogic.isValidMove(corpus.get(i % n), hop[0], hop[1]) ? 1 : 0;
+    });
+    harness.add("Game.copy", i -> corpus.get(i % n).copy().getSkipIndex());
+    harness.add("Game.copy+move", i -> {
+      Game game = corpus.get(i % n).copy();
+      int[] hop = hops[i % n];
+      return game.move(hop[0], hop[1]) ? 1 : 0;
+    });
+    harness.add("Game.makeMove+unmakeMove", i -> {
+      Game game = corpus.get(i % n);
+      long move = firstMoves[i % n];
+      long undo = game.makeMove(move);
+      game.unmakeMove(move, undo);
+      return undo;
+    });
+    harness.add("Game.isGameOver (cached)", i -> corpus.get(i % n).isGameOver() ? 1 : 0);
+    harness.add("Game.getGameState", i -> corpus.get(i % n).getGameState().length());
+    harness.add("Game.setGameState", i -> {
+      scratch.setGameState(states[i % n]);
+      return scratch.getSkipIndex();
+    });
+    ByteBuffer encoded = ByteBuffer.allocate(n * GameCodec.SIZE);
+    for (Game game : corpus) {
+      GameCodec.encode(game, encoded);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(GameCodec.SIZE);
+    harness.add("GameCodec.encode", i -> {
+      GameCodec.encode(corpus.get(i % n), buffer, 0);
+      return buffer.get(12);
+    });
+    harness.add("GameCodec.decode", i -> {
+      GameCodec.decode(encoded, (i % n) * GameCodec.SIZE, scratch);
+      return scratch.getSkipIndex();
+    });
+
+    // Decoding drops the cached legal moves; the difference from the decode row is a cold check
+    harness.add("GameCodec.decode+isGameOver", i -> {
+      GameCodec.decode(encoded, (i % n) * GameCodec.SIZE, scratch);
+      return scratch.isGameOver() ? 1 : 0;
+    });
+
+    // Evaluation, one position at a time and in one batch per corpus pass
+    DefaultEvaluator evaluator = DefaultEvaluator.DEFAULT;
+    int[] positions = new int[3 * n];
+    for (int j = 0; j < n; j++) {
+      Board board = corpus.get(j).getBoard();
+      positions[3 * j] = board.getBlackBits();
+      positions[3 * j + 1] = board.getWhiteBits();
+      positions[3 * j + 2] = board.getKingBits();
+    }
+    int[] scores = new int[n];
+    harness.add("DefaultEvaluator.evaluate", i -> {
+      int j = 3 * (i % n);
+      return evaluator.evaluate(positions[j], positions[j + 1], positions[j + 2], true);
+    });
+    harness.add("DefaultEvaluator.evaluate[" + n + "]", i -> {
+      evaluator.evaluate(positions, n, scores);
+      return scores[i % n];
+    });
+  }
+
+  /**
+   * Creates a corpus of positions by playing random legal moves from the
+   * start, restarting whenever a game ends.
+   */
+  public static List<Game> createCorpus(int size, long seed) {
+    List<Game> corpus = new ArrayList<>(size);
+    Random random = new Random(seed);
+    MoveList moves = new MoveList();
+    int[] path = new int[BitboardGenerator.MAX_PATH];
+    Game game = new Game();
+    while (corpus.size() < size) {
+      Board board = game.getBoard();
+      BitboardGenerator.getMoves(board, game.isP1Turn(), game.getSkipIndex(), moves);
+      if (moves.isEmpty()) {
+        game.restart();
+        continue;
+      }
+      long move = moves.get(random.nextInt(moves.size()));
+      int length = BitboardGenerator.getPath(board.getBlackBits(), board.getWhiteBits(),
+        board.getKingBits(), move, path);
+      for (int i = 1; i < length; i++) {
+        game.move(path[i - 1], path[i]);
+      }
+      if (!game.isGameOver()) {
+        corpus.add(game.copy());
+      }
+    }
+    return corpus;
+  }
+
+  /**
+   * Finds the first legal single step or skip in a position.
+   *
+   * @return the start and end index of the step.
+   */
+  public static int[] firstHop(Game game) {
+    Board board = game.getBoard();
+    MoveList moves = new MoveList();
+    BitboardGenerator.getMoves(board, game.isP1Turn(), game.getSkipIndex(), moves);
+    int[] path = new int[BitboardGenerator.MAX_PATH];
+    BitboardGenerator.getPath(board.getBlackBits(), board.getWhiteBits(), board.getKingBits(),
+      moves.get(0), path);
+    return new int[] {path[0], path[1]};
+  }
+}
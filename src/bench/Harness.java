@@ -0,0 +1,120 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * A small microbenchmark harness for quick smoke tests. Each benchmark is
+ * an operation over an index into a corpus of inputs; it is run for a number
+ * of warm-up and measured iterations of fixed duration, and the time and heap
+ * allocated per operation are reported. Results are summed into a sink so
+ * the JIT cannot easily remove the work being measured.
+ *
+ * <p>It is not a substitute for JMH: every benchmark runs in the same JVM
+ * without forking, through one call site that becomes megamorphic after the
+ * first few, and the sink is weaker than a JMH blackhole. Use it to spot
+ * large regressions, and the {@code jmh} module for real measurements.
+ */
+public class Harness {
+
+  /** The number of un-measured iterations used to warm up the JIT. */
+  private final int warmups;
+
+  /** The number of measured iterations. */
+  private final int iterations;
+
+  /** The length of each iteration, in milliseconds. */
+  private final long iterationMillis;
+
+  /** The benchmarks to run, or null to run all of them. */
+  private final Pattern filter;
+
+  /** The names of the benchmarks, in the order they were added. */
+  private final List<String> names = new ArrayList<>();
+
+  /** The operations of the benchmarks. */
+  private final List<IntToLongFunction> operations = new ArrayList<>();
+
+  /** The combined results of every operation, so none are optimised away. */
+  private long sink;
+
+  public Harness(int warmups, int iterations, long iterationMillis, String filter) {
+    this.warmups = warmups;
+    this.iterations = iterations;
+    this.iterationMillis = iterationMillis;
+    this.filter = (filter == null) ? null : Pattern.compile(filter);
+  }
+
+  /**
+   * Adds a benchmark. The operation is called with increasing indices, which
+   * it should map onto its corpus.
+   */
+  public void add(String name, IntToLongFunction operation) {
+    if (filter == null || filter.matcher(name).find()) {
+      names.add(name);
+      operations.add(operation);
+    }
+  }
+
+  /**
+   * Runs every benchmark and prints a table of the results.
+   */
+  public void run() {
+    System.out.printf("%-36s %12s %12s %12s%n", "benchmark", "ns/op", "B/op", "MB/sec");
+    for (int i = 0; i < names.size(); i++) {
+      IntToLongFunction op = operations.get(i);
+      for (int w = 0; w < warmups; w++) {
+        measure(op);
+      }
+      double nanos = 0, bytes = 0, ops = 0;
+      for (int m = 0; m < iterations; m++) {
+        double[] result = measure(op);
+        nanos += result[0];
+        bytes += result[1];
+        ops += result[2];
+      }
+      System.out.printf("%-36s %12.1f %12.1f %12.1f%n", names.get(i), nanos / ops, bytes / ops,
+        bytes / (1024 * 1024) / (nanos / 1e9));
+    }
+    if (sink == 42) {
+      System.out.println();
+    }
+  }
+
+  /**
+   * Runs an operation repeatedly for one iteration.
+   *
+   * @return the nanoseconds taken, the bytes allocated and the operations run.
+   */
+  private double[] measure(IntToLongFunction op) {
+    long ops = 0, acc = 0;
+    long bytes = allocatedBytes();
+    long start = System.nanoTime(), end = start + iterationMillis * 1_000_000L, now;
+    do {
+      for (int k = 0; k < 256; k++) {
+        acc += op.applyAsLong((int) ops++);
+      }
+      now = System.nanoTime();
+    } while (now < end);
+    bytes = allocatedBytes() - bytes;
+    sink += acc;
+    return new double[] {now - start, bytes, ops};
+  }
+
+  /**
+   * Gets the number of bytes allocated by the current thread so far, or 0 if
+   * the JVM cannot tell.
+   */
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+        Thread.currentThread().getId()
+      );
+    }
+    return 0;
+  }
+}
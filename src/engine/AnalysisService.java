@@ -0,0 +1,133 @@
+package engine;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import model.Game;
+import model.Position;
+
+/**
+ * Analyses positions on a background thread, so a user interface can show
+ * the engine's best move while it deepens without waiting for it. Each call
+ * to {@link #analyse} takes the game's snapshot, stops the analysis in
+ * progress and searches the new position, passing the result of every
+ * completed iteration to a {@link SearchListener}.
+ *
+ * <p>Results are delivered through a callback executor, such as
+ * {@code SwingUtilities::invokeLater} so they arrive on the event thread.
+ * Every analysis has a number, and a result is only delivered if its
+ * analysis is still the latest when the callback runs, so a listener never
+ * sees a result for a position that was since moved on from or cancelled.
+ *
+ * <p>The search runs at the lowest thread priority and checks for a stop
+ * every few thousand positions, so starting or cancelling an analysis takes
+ * the same short time however deep the search has gone.
+ */
+public class AnalysisService implements AutoCloseable {
+
+  /** The search running the analysis, only used by the analysis thread. */
+  private final Search search;
+
+  /** The executor the results are delivered through. */
+  private final Executor callbacks;
+
+  /** The thread running the analysis. */
+  private final ExecutorService worker;
+
+  /** The number of the latest analysis; earlier ones are stale. */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Creates a service with its own search and transposition table that
+   * delivers results on the analysis thread.
+   */
+  public AnalysisService() {
+    this(new Search(new TranspositionTable()), Runnable::run);
+  }
+
+  /**
+   * Creates a service that runs a search and delivers its results through
+   * an executor. The search should be configured before the first analysis
+   * and not used elsewhere.
+   */
+  public AnalysisService(Search search, Executor callbacks) {
+    this.search = (search == null) ? new Search(new TranspositionTable()) : search;
+    this.callbacks = (callbacks == null) ? Runnable::run : callbacks;
+    this.worker = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "analysis");
+      t.setDaemon(true);
+      t.setPriority(Thread.MIN_PRIORITY);
+      return t;
+    });
+  }
+
+  public Search getSearch() {
+    return search;
+  }
+
+  /**
+   * Starts analysing the current position of a game in place of any earlier
+   * analysis. Only the game's immutable snapshot is handed over, so the
+   * game may change as soon as this returns.
+   */
+  public void analyse(Game game, SearchListener listener) {
+    analyse(game.getPosition(), listener);
+  }
+
+  /**
+   * Starts analysing a position in place of any earlier analysis.
+   */
+  public void analyse(Position position, SearchListener listener) {
+    long id = generation.incrementAndGet();
+    search.stop();
+    long stopCount = search.getStopCount();
+    worker.execute(() -> run(id, stopCount, position, listener));
+  }
+
+  /**
+   * Stops the analysis in progress and drops any of its results not yet
+   * delivered.
+   */
+  public void cancel() {
+    generation.incrementAndGet();
+    search.stop();
+  }
+
+  /**
+   * Checks if an analysis is still the latest, neither cancelled nor
+   * replaced.
+   */
+  private boolean isCurrent(long id) {
+    return generation.get() == id;
+  }
+
+  /**
+   * Searches a position for one analysis, unless it was already replaced.
+   * Replacing or cancelling it stops the search, even before it begins.
+   */
+  private void run(long id, long stopCount, Position position, SearchListener listener) {
+    if (!isCurrent(id)) {
+      return;
+    }
+    search.setListener(result -> callbacks.execute(() -> {
+      if (isCurrent(id)) {
+        listener.iterationCompleted(result);
+      }
+    }));
+    try {
+      search.search(position, stopCount);
+    } finally {
+      search.setListener(null);
+    }
+  }
+
+  /**
+   * Stops the analysis and its thread.
+   */
+  @Override
+  public void close() {
+    cancel();
+    worker.shutdownNow();
+  }
+}
@@ -0,0 +1,114 @@
+package engine;
+
+import logic.BitboardGenerator;
+import model.Game;
+import model.MoveList;
+import model.Player;
+import model.Position;
+
+/**
+ * A computer player that uses a {@link Search} to pick its moves, playing
+ * from an {@link OpeningBook} instead when it has one for the position.
+ */
+public class ComputerPlayer extends Player {
+
+  /** The search engine used to pick moves. */
+  private final Search search;
+
+  /** The opening book consulted before searching, or null for none. */
+  private OpeningBook book;
+
+  /** The result of the last search, or null if none was made. */
+  private SearchResult lastResult;
+
+  public ComputerPlayer() {
+    this(new Search(new TranspositionTable()));
+  }
+
+  public ComputerPlayer(Search search) {
+    this.search = (search == null) ? new Search() : search;
+  }
+
+  public Search getSearch() {
+    return search;
+  }
+
+  public OpeningBook getOpeningBook() {
+    return book;
+  }
+
+  /**
+   * Sets the opening book whose moves are played without searching, or null
+   * to always search.
+   */
+  public void setOpeningBook(OpeningBook book) {
+    this.book = book;
+  }
+
+  public SearchResult getLastResult() {
+    return lastResult;
+  }
+
+  @Override
+  public boolean isHuman() {
+    return false;
+  }
+
+  /**
+   * Plays the opening book's move for the position, if there is one, or
+   * else searches for the best move. The move is played one skip at a time
+   * through {@link Game#move(int, int)} so that multi-skips follow the same
+   * rules as a human player's clicks.
+   */
+  @Override
+  public void updateGame(Game game) {
+    if (game == null || game.isGameOver()) {
+      return;
+    }
+
+    // Play a book move if there is one, otherwise search for the best move
+    Position position = game.getPosition();
+    this.lastResult = getBookResult(game);
+    if (lastResult == null) {
+      this.lastResult = search.search(position);
+    }
+    if (!lastResult.hasMove()) {
+      return;
+    }
+
+    // Play each skip of the move until the turn passes
+    int[] path = new int[BitboardGenerator.MAX_PATH];
+    int n = BitboardGenerator.getPath(
+      position.getBlackBits(),
+      position.getWhiteBits(),
+      position.getKingBits(),
+      lastResult.getBestMove(),
+      path
+    );
+    boolean isP1Turn = game.isP1Turn();
+    for (int i = 1; i < n && game.isP1Turn() == isP1Turn; i++) {
+      if (!game.move(path[i - 1], path[i])) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Looks up the current position in the opening book.
+   *
+   * @return a result holding the book move, or null if there is none.
+   */
+  private SearchResult getBookResult(Game game) {
+    if (book == null || game.getSkipIndex() >= 0) {
+      return null;
+    }
+    long start = System.nanoTime();
+    MoveList legal = new MoveList();
+    game.getMoves(legal);
+    long move = book.getMove(game.getHash(), legal);
+    if (move == 0) {
+      return null;
+    }
+    return new SearchResult(move, 0, 0, 0, System.nanoTime() - start, new long[] {move});
+  }
+}
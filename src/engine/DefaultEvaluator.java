@@ -0,0 +1,285 @@
+package engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+import logic.BitboardGenerator;
+
+/**
+ * Scores a position as a weighted sum of features, each counted for black
+ * minus white:
+ * <ul>
+ *   <li>{@code checker}: checkers that are not kings.</li>
+ *   <li>{@code king}: kings.</li>
+ *   <li>{@code backRank}: checkers still on their own back row, which keep
+ *       the opponent from crowning.</li>
+ *   <li>{@code center}: checkers and kings on the four center tiles.</li>
+ *   <li>{@code mobility}: checkers and kings with a simple move.</li>
+ *   <li>{@code unsafe}: checkers and kings the opponent could skip, as in
+ *       {@code logic.MoveLogic.isSafe} (the weight is normally negative).</li>
+ * </ul>
+ *
+ * <p>The weights are read from a properties file with one key per feature,
+ * such as {@code king=130}; missing keys keep their default. Every feature
+ * is worked out with a few bit operations on the masks, so the batch
+ * {@link #evaluate(int[], int, int[])} scores tens of millions of positions
+ * per second on one core. An evaluator is immutable and so can be shared by
+ * search threads; {@link #withWeight} makes a tuned copy.
+ *
+ * <p>{@link #DEFAULT} uses the file named by the {@code checkers.evaluator}
+ * system property if it is set, and the default weights otherwise.
+ */
+public class DefaultEvaluator implements Evaluator {
+
+  /** The feature index of checkers that are not kings. */
+  public static final int CHECKER = 0;
+
+  /** The feature index of kings. */
+  public static final int KING = 1;
+
+  /** The feature index of checkers on their own back row. */
+  public static final int BACK_RANK = 2;
+
+  /** The feature index of pieces on the center tiles. */
+  public static final int CENTER = 3;
+
+  /** The feature index of pieces with a simple move. */
+  public static final int MOBILITY = 4;
+
+  /** The feature index of pieces the opponent could skip. */
+  public static final int UNSAFE = 5;
+
+  /** The number of features. */
+  public static final int FEATURES = 6;
+
+  /** The system property naming the weights file of {@link #DEFAULT}. */
+  public static final String CONFIG_PROPERTY = "checkers.evaluator";
+
+  /** The property key of each feature. */
+  private static final String[] NAMES = {
+    "checker", "king", "backRank", "center", "mobility", "unsafe"
+  };
+
+  /** The default weight of each feature. */
+  private static final int[] DEFAULT_WEIGHTS = {100, 130, 6, 4, 2, -5};
+
+  /** The back row of black, which white crowns on. */
+  private static final int BLACK_BACK_ROW = BitboardGenerator.WHITE_KING_ROW;
+
+  /** The back row of white, which black crowns on. */
+  private static final int WHITE_BACK_ROW = BitboardGenerator.BLACK_KING_ROW;
+
+  /** The four center tiles: 13, 14, 17 and 18. */
+  private static final int CENTER_TILES = 0x00066000;
+
+  /** The evaluator used by a search unless it is given another. */
+  public static final DefaultEvaluator DEFAULT = loadDefault();
+
+  /** The weight of each feature. */
+  private final int[] weights;
+
+  /**
+   * Creates an evaluator with the default weights.
+   */
+  public DefaultEvaluator() {
+    this.weights = DEFAULT_WEIGHTS.clone();
+  }
+
+  /**
+   * Creates an evaluator with a weight for each feature, in feature order.
+   */
+  public DefaultEvaluator(int[] weights) {
+    if (weights.length != FEATURES) {
+      throw new IllegalArgumentException("Expected " + FEATURES + " weights: " +
+        weights.length);
+    }
+    this.weights = weights.clone();
+  }
+
+  /**
+   * Creates an evaluator with the weights in a set of properties, keeping
+   * the default for any feature without one.
+   *
+   * @throws IllegalArgumentException if a weight is not an integer.
+   */
+  public DefaultEvaluator(Properties properties) {
+    this.weights = DEFAULT_WEIGHTS.clone();
+    for (int i = 0; i < FEATURES; i++) {
+      String value = properties.getProperty(NAMES[i]);
+      if (value != null) {
+        try {
+          weights[i] = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Bad weight for " + NAMES[i] + ": " + value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates an evaluator with the weights in a properties file.
+   */
+  public static DefaultEvaluator load(Path path) throws IOException {
+    Properties properties = new Properties();
+    try (Reader in = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+      properties.load(in);
+    }
+    try {
+      return new DefaultEvaluator(properties);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage() + " in " + path);
+    }
+  }
+
+  /**
+   * Writes the weights to a properties file that {@link #load} can read.
+   */
+  public void store(Path path) throws IOException {
+    try (Writer out = Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1)) {
+      toProperties().store(out, "Evaluation weights, in hundredths of a checker");
+    }
+  }
+
+  /**
+   * Loads the evaluator named by the system property, falling back to the
+   * default weights if there is none or it cannot be read.
+   */
+  private static DefaultEvaluator loadDefault() {
+    String file = System.getProperty(CONFIG_PROPERTY);
+    if (file == null || file.isEmpty()) {
+      return new DefaultEvaluator();
+    }
+    try {
+      return load(Paths.get(file));
+    } catch (IOException e) {
+      System.err.println("Using the default evaluation weights: " + e.getMessage());
+      return new DefaultEvaluator();
+    }
+  }
+
+  /**
+   * Gets the property key of a feature, such as {@code backRank}.
+   */
+  public static String getFeatureName(int feature) {
+    return NAMES[feature];
+  }
+
+  public int getWeight(int feature) {
+    return weights[feature];
+  }
+
+  /**
+   * Gets a copy of the weights, in feature order.
+   */
+  public int[] getWeights() {
+    return weights.clone();
+  }
+
+  /**
+   * Makes a copy of this evaluator with one weight changed.
+   */
+  public DefaultEvaluator withWeight(int feature, int weight) {
+    int[] changed = weights.clone();
+    changed[feature] = weight;
+    return new DefaultEvaluator(changed);
+  }
+
+  public Properties toProperties() {
+    Properties properties = new Properties();
+    for (int i = 0; i < FEATURES; i++) {
+      properties.setProperty(NAMES[i], Integer.toString(weights[i]));
+    }
+    return properties;
+  }
+
+  @Override
+  public int evaluate(int black, int white, int kings, boolean isP1Turn) {
+    int score = score(black, white, kings);
+    return isP1Turn ? score : -score;
+  }
+
+  @Override
+  public void evaluate(int[] positions, int count, int[] scores) {
+    for (int i = 0, j = 0; i < count; i++, j += 3) {
+      scores[i] = score(positions[j], positions[j + 1], positions[j + 2]);
+    }
+  }
+
+  /**
+   * Scores a position from black's point of view.
+   */
+  private int score(int black, int white, int kings) {
+    int empty = ~(black | white);
+    int score = weights[CHECKER] * (Integer.bitCount(black & ~kings) -
+                                    Integer.bitCount(white & ~kings)) +
+                weights[KING] * (Integer.bitCount(black & kings) - Integer.bitCount(white & kings));
+    score += weights[BACK_RANK] * (Integer.bitCount(black & ~kings & BLACK_BACK_ROW) -
+                                   Integer.bitCount(white & ~kings & WHITE_BACK_ROW));
+    score += weights[CENTER] * (Integer.bitCount(black & CENTER_TILES) -
+                                Integer.bitCount(white & CENTER_TILES));
+    score += weights[MOBILITY] *
+             (Integer.bitCount(BitboardGenerator.getMovers(black, kings, empty, true)) -
+              Integer.bitCount(BitboardGenerator.getMovers(white, kings, empty, false)));
+    score += weights[UNSAFE] * (Integer.bitCount(getUnsafe(black, white, kings, empty, true)) -
+                                Integer.bitCount(getUnsafe(white, black, kings, empty, false)));
+    return score;
+  }
+
+  /**
+   * Fills an array with the features of a position from black's point of
+   * view, in feature order, so a tuner can fit the weights. The score is the
+   * dot product of the features and the weights.
+   */
+  public static void getFeatures(int black, int white, int kings, int[] features) {
+    int empty = ~(black | white);
+    features[CHECKER] = Integer.bitCount(black & ~kings) - Integer.bitCount(white & ~kings);
+    features[KING] = Integer.bitCount(black & kings) - Integer.bitCount(white & kings);
+    features[BACK_RANK] = Integer.bitCount(black & ~kings & BLACK_BACK_ROW) -
+                          Integer.bitCount(white & ~kings & WHITE_BACK_ROW);
+    features[CENTER] = Integer.bitCount(black & CENTER_TILES) -
+                       Integer.bitCount(white & CENTER_TILES);
+    features[MOBILITY] = Integer.bitCount(BitboardGenerator.getMovers(black, kings, empty, true)) -
+                         Integer.bitCount(BitboardGenerator.getMovers(white, kings, empty, false));
+    features[UNSAFE] = Integer.bitCount(getUnsafe(black, white, kings, empty, true)) -
+                       Integer.bitCount(getUnsafe(white, black, kings, empty, false));
+  }
+
+  /**
+   * Gets the pieces of one side that the other could skip: an opponent
+   * piece next to it that may move towards it, with an empty tile behind.
+   *
+   * @param isBlack true if the pieces in {@code own} are black.
+   */
+  static int getUnsafe(int own, int opp, int kings, int empty, boolean isBlack) {
+    int unsafe = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      // The opponent's checkers move towards the side they started away from
+      boolean down = (dir == BitboardGenerator.DOWN_LEFT || dir == BitboardGenerator.DOWN_RIGHT);
+      int attackers = (down != isBlack) ? opp : opp & kings;
+      unsafe |= BitboardGenerator.shift(attackers, dir) & own &
+                BitboardGenerator.shift(empty, BitboardGenerator.opposite(dir));
+    }
+    return unsafe;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getName() + "[" + toProperties() + "]";
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof DefaultEvaluator && Arrays.equals(weights, ((DefaultEvaluator) o).weights);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(weights);
+  }
+}
@@ -0,0 +1,76 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Board;
+import model.Game;
+import model.Move;
+import model.MoveList;
+import model.Position;
+
+/**
+ * Scores positions for the {@link Search}. A position is given as the bit
+ * masks of the black checkers, white checkers and kings (see
+ * {@link Board#getBlackBits}), and its score is in hundredths of a checker.
+ *
+ * <p>Implementations are called from every search thread at once, so they
+ * must be thread-safe; keeping them immutable is simplest.
+ */
+public interface Evaluator {
+
+  /**
+   * Scores a position from the side to move's point of view.
+   */
+  int evaluate(int black, int white, int kings, boolean isP1Turn);
+
+  /**
+   * Scores the current position of a game from the side to move's point of
+   * view.
+   */
+  default int evaluate(Game game) {
+    return evaluate(game.getPosition());
+  }
+
+  /**
+   * Scores a position from the side to move's point of view.
+   */
+  default int evaluate(Position position) {
+    return evaluate(position.getBlackBits(), position.getWhiteBits(), position.getKingBits(),
+      position.isP1Turn());
+  }
+
+  /**
+   * Scores many positions in one call, each from black's point of view.
+   * Position {@code i} is packed as {@code positions[3 * i]} (black),
+   * {@code positions[3 * i + 1]} (white) and {@code positions[3 * i + 2]}
+   * (kings), and its score is stored in {@code scores[i]}.
+   */
+  default void evaluate(int[] positions, int count, int[] scores) {
+    for (int i = 0; i < count; i++) {
+      scores[i] = evaluate(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2], true);
+    }
+  }
+
+  /**
+   * Gets every legal move of a game, each weighted (see
+   * {@link Move#getWeight}) with the score of the position it leads to from
+   * the point of view of the side making it.
+   */
+  default List<Move> getWeightedMoves(Game game) {
+    MoveList legal = new MoveList();
+    int n = game.getMoves(legal);
+    Board board = game.getBoard();
+    boolean isP1Turn = game.isP1Turn();
+    List<Move> weighted = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      long packed = legal.get(i);
+      int capturedKings = board.makeMove(packed);
+      Move move = new Move(packed);
+      move.setWeight(-evaluate(board.getBlackBits(), board.getWhiteBits(),
+        board.getKingBits(), !isP1Turn));
+      board.unmakeMove(packed, capturedKings);
+      weighted.add(move);
+    }
+    return weighted;
+  }
+}
@@ -0,0 +1,176 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import model.MoveList;
+
+/**
+ * Looks up moves for known opening positions, so that a player can answer
+ * them at once instead of searching. The book file is written by
+ * {@link OpeningBookBuilder} and read through a memory-mapped buffer.
+ *
+ * <p>The file is a header (magic, version, record count) followed by
+ * fixed-size records of (position hash, packed move, count, score), sorted by
+ * hash and then by count from most to least played. The count is how many
+ * games played the move from the position and the score is the sum of their
+ * results for the side that played it (+1 win, 0 draw, -1 loss). Looking up a
+ * position is a binary search over the records.
+ */
+public class OpeningBook {
+
+  /** The magic number at the start of a book file ("CKOB"). */
+  static final int MAGIC = 0x434B4F42;
+
+  /** The version of the file format. */
+  static final int VERSION = 1;
+
+  /** The size of the header, in bytes. */
+  static final int HEADER_SIZE = 16;
+
+  /** The size of one record, in bytes. */
+  static final int RECORD_SIZE = 24;
+
+  /** The records, after the header. */
+  private final ByteBuffer records;
+
+  /** The number of records. */
+  private final int size;
+
+  OpeningBook(ByteBuffer records, int size) {
+    this.records = records;
+    this.size = size;
+  }
+
+  /**
+   * Opens a book file, mapping it into memory read-only.
+   */
+  public static OpeningBook open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not an opening book file: " + path);
+      }
+      long count = header.getLong();
+      if (count < 0 || HEADER_SIZE + count * RECORD_SIZE > channel.size() ||
+          count * RECORD_SIZE > Integer.MAX_VALUE) {
+        throw new IOException("Bad record count in opening book: " + path);
+      }
+      ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+        count * RECORD_SIZE);
+      return new OpeningBook(records, (int) count);
+    }
+  }
+
+  /**
+   * Gets the number of (position, move) records in the book.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the book has any moves for a position.
+   */
+  public boolean contains(long key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Gets the most played move from a position.
+   *
+   * @return the packed move, or 0 if the position is not in the book.
+   */
+  public long getMove(long key) {
+    int i = find(key);
+    return i < 0 ? 0 : getMoveAt(i);
+  }
+
+  /**
+   * Gets the most played move from a position that is also in a list of
+   * legal moves, which guards against the rare hash collision.
+   *
+   * @return the packed move, or 0 if no book move for the position is legal.
+   */
+  public long getMove(long key, MoveList legal) {
+    for (int i = find(key); i >= 0 && i < size && getKeyAt(i) == key; i++) {
+      long move = getMoveAt(i);
+      if (legal.contains(move)) {
+        return move;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Fills a list with every book move from a position, most played first.
+   *
+   * @return the number of moves in {@code moves}.
+   */
+  public int getMoves(long key, MoveList moves) {
+    moves.clear();
+    for (int i = find(key); i >= 0 && i < size && getKeyAt(i) == key; i++) {
+      moves.add(getMoveAt(i));
+    }
+    return moves.size();
+  }
+
+  /**
+   * Gets how many games played a move from a position.
+   */
+  public int getCount(long key, long move) {
+    int i = find(key, move);
+    return i < 0 ? 0 : records.getInt(i * RECORD_SIZE + 16);
+  }
+
+  /**
+   * Gets the total result of the games that played a move from a position,
+   * for the side that played it.
+   */
+  public int getScore(long key, long move) {
+    int i = find(key, move);
+    return i < 0 ? 0 : records.getInt(i * RECORD_SIZE + 20);
+  }
+
+  /**
+   * Finds the first record of a position.
+   *
+   * @return the record number, or -1 if the position is not in the book.
+   */
+  private int find(long key) {
+    int lo = 0, hi = size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (getKeyAt(mid) < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo < size && getKeyAt(lo) == key ? lo : -1;
+  }
+
+  /**
+   * Finds the record of a move from a position.
+   */
+  private int find(long key, long move) {
+    for (int i = find(key); i >= 0 && i < size && getKeyAt(i) == key; i++) {
+      if (getMoveAt(i) == move) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private long getKeyAt(int i) {
+    return records.getLong(i * RECORD_SIZE);
+  }
+
+  private long getMoveAt(int i) {
+    return records.getLong(i * RECORD_SIZE + 8);
+  }
+}
@@ -0,0 +1,281 @@
+package engine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Game;
+import model.MoveList;
+
+/**
+ * Builds an opening book (see {@link OpeningBook}) by self-play. Each game
+ * starts from the initial position and is played to the end by a fixed-depth
+ * search, except that within the book's depth a random move is sometimes
+ * played instead, so that games branch into different openings. The position
+ * and move of every searched turn within the book's depth is recorded along
+ * with the game's result, and the records of all games are merged, sorted and
+ * written.
+ *
+ * <p>Games are seeded by their number and each starts with an empty
+ * transposition table, so a book is the same for the same settings however
+ * many threads build it.
+ */
+public class OpeningBookBuilder {
+
+  /** The default number of plies from the start that are recorded. */
+  public static final int DEFAULT_PLIES = 16;
+
+  /** The default depth the self-play games are searched to. */
+  public static final int DEFAULT_DEPTH = 8;
+
+  /** The default chance of a random move at each turn within the book's depth. */
+  public static final double DEFAULT_RANDOM_RATE = 0.15;
+
+  /** The ply at which an unfinished self-play game is scored as a draw. */
+  private static final int MAX_GAME_PLIES = 200;
+
+  /** The size of each thread's transposition table, cleared before every game. */
+  private static final int TABLE_SIZE_MB = 4;
+
+  /** The fixed seed the games' random openings are drawn from. */
+  private static final long SEED = 0x4F70656E696E67L;
+
+  /** The number of plies from the start that are recorded. */
+  private int plies = DEFAULT_PLIES;
+
+  /** The depth the self-play games are searched to. */
+  private int depth = DEFAULT_DEPTH;
+
+  /** The chance of a random move at each turn within the book's depth. */
+  private double randomRate = DEFAULT_RANDOM_RATE;
+
+  /** The least number of games a move needs to be written. */
+  private int minCount = 1;
+
+  /** The counts and scores of each move, by position and then by move. */
+  private final Map<Long, Map<Long, int[]>> records = new HashMap<>();
+
+  /**
+   * Plays self-play games and writes the book they make.
+   *
+   * <p>Usage: {@code java engine.OpeningBookBuilder [games] [file] [threads] [plies] [depth]}
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    Path path = Paths.get(args.length > 1 ? args[1] : "checkers.book");
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+        Runtime.getRuntime().availableProcessors();
+    OpeningBookBuilder builder = new OpeningBookBuilder();
+    if (args.length > 3) {
+      builder.setPlies(Integer.parseInt(args[3]));
+    }
+    if (args.length > 4) {
+      builder.setDepth(Integer.parseInt(args[4]));
+    }
+
+    long start = System.nanoTime();
+    builder.play(games, threads);
+    int written = builder.write(path);
+    System.out.printf("Wrote %s (%d positions, %d moves) from %d games in %.1f s%n", path,
+      builder.records.size(), written, games, (System.nanoTime() - start) / 1e9);
+  }
+
+  public int getPlies() {
+    return plies;
+  }
+
+  /**
+   * Sets the number of plies from the start that are recorded.
+   */
+  public void setPlies(int plies) {
+    this.plies = Math.max(1, plies);
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Sets the depth the self-play games are searched to.
+   */
+  public void setDepth(int depth) {
+    this.depth = Math.max(1, depth);
+  }
+
+  public double getRandomRate() {
+    return randomRate;
+  }
+
+  /**
+   * Sets the chance of a random move at each turn within the book's depth.
+   * Random moves are not recorded.
+   */
+  public void setRandomRate(double randomRate) {
+    this.randomRate = Math.max(0, Math.min(randomRate, 1));
+  }
+
+  public int getMinCount() {
+    return minCount;
+  }
+
+  /**
+   * Sets the least number of games a move needs to be written, to leave out
+   * moves seen too rarely to be trusted.
+   */
+  public void setMinCount(int minCount) {
+    this.minCount = Math.max(1, minCount);
+  }
+
+  /**
+   * Plays a number of self-play games across threads and adds their moves
+   * to the book.
+   */
+  public void play(int games, int threads) throws InterruptedException {
+    AtomicInteger next = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      List<Future<Map<Long, Map<Long, int[]>>>> futures = new ArrayList<>();
+      for (int t = 0; t < Math.max(1, threads); t++) {
+        futures.add(pool.submit(() -> {
+          Map<Long, Map<Long, int[]>> local = new HashMap<>();
+          TranspositionTable table = new TranspositionTable(TABLE_SIZE_MB);
+          Search search = new Search(table);
+          search.setMaxDepth(depth);
+          for (int game = next.getAndIncrement(); game < games; game = next.getAndIncrement()) {
+            table.clear();
+            playGame(search, new SplittableRandom(SEED + game), local);
+          }
+          return local;
+        }));
+      }
+      for (Future<Map<Long, Map<Long, int[]>>> future : futures) {
+        merge(future.get());
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Writes the book to a file.
+   *
+   * @return the number of records written.
+   */
+  public int write(Path path) throws IOException {
+    try (OutputStream file = Files.newOutputStream(path)) {
+      return write(new BufferedOutputStream(file, 1 << 16));
+    }
+  }
+
+  /**
+   * Creates an in-memory book of the moves played so far.
+   */
+  public OpeningBook toOpeningBook() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int count = write(bytes);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    buffer.position(OpeningBook.HEADER_SIZE);
+    return new OpeningBook(buffer.slice(), count);
+  }
+
+  /**
+   * Writes the book: the header, then every move played at least the
+   * minimum number of times, sorted by position hash and then by count.
+   *
+   * @return the number of records written.
+   */
+  private int write(OutputStream stream) throws IOException {
+    List<long[]> sorted = new ArrayList<>();
+    for (Map.Entry<Long, Map<Long, int[]>> position : records.entrySet()) {
+      for (Map.Entry<Long, int[]> move : position.getValue().entrySet()) {
+        int[] value = move.getValue();
+        if (value[0] >= minCount) {
+          sorted.add(new long[] {position.getKey(), move.getKey(), value[0], value[1]});
+        }
+      }
+    }
+    sorted.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) :
+        a[2] != b[2] ? Long.compare(b[2], a[2]) :
+        a[3] != b[3] ? Long.compare(b[3], a[3]) : Long.compare(a[1], b[1]));
+
+    DataOutputStream out = new DataOutputStream(stream);
+    out.writeInt(OpeningBook.MAGIC);
+    out.writeInt(OpeningBook.VERSION);
+    out.writeLong(sorted.size());
+    for (long[] record : sorted) {
+      out.writeLong(record[0]);
+      out.writeLong(record[1]);
+      out.writeInt((int) record[2]);
+      out.writeInt((int) record[3]);
+    }
+    out.flush();
+    return sorted.size();
+  }
+
+  /**
+   * Plays one game and records its searched moves within the book's depth.
+   */
+  private void playGame(Search search, SplittableRandom random, Map<Long, Map<Long, int[]>> out) {
+    Game game = new Game();
+    MoveList moves = new MoveList();
+    List<long[]> played = new ArrayList<>();
+    int result = 0;
+    for (int ply = 0; ply < MAX_GAME_PLIES; ply++) {
+      int n = game.getMoves(moves);
+      if (n == 0) {
+        // The side to move has lost
+        result = game.isP1Turn() ? -1 : 1;
+        break;
+      }
+      long move;
+      if (ply < plies && random.nextDouble() < randomRate) {
+        move = moves.get(random.nextInt(n));
+      } else {
+        move = n == 1 ? moves.get(0) : search.search(game).getBestMove();
+        if (ply < plies) {
+          played.add(new long[] {game.getHash(), move, game.isP1Turn() ? 1 : -1});
+        }
+      }
+      game.makeMove(move);
+    }
+
+    // Score each recorded move for the side that played it
+    for (long[] record : played) {
+      int[] value = out.computeIfAbsent(record[0], k -> new HashMap<>())
+          .computeIfAbsent(record[1], k -> new int[2]);
+      value[0]++;
+      value[1] += result * (int) record[2];
+    }
+  }
+
+  /**
+   * Adds the records of one thread to the book.
+   */
+  private void merge(Map<Long, Map<Long, int[]>> local) {
+    for (Map.Entry<Long, Map<Long, int[]>> position : local.entrySet()) {
+      Map<Long, int[]> moves = records.computeIfAbsent(position.getKey(), k -> new HashMap<>());
+      for (Map.Entry<Long, int[]> move : position.getValue().entrySet()) {
+        int[] value = moves.computeIfAbsent(move.getKey(), k -> new int[2]);
+        value[0] += move.getValue()[0];
+        value[1] += move.getValue()[1];
+      }
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.Game;
+import model.Position;
+
+/**
+ * Searches on several threads at once using Lazy SMP: every thread runs its
+ * own {@link Search} on the same position and they share one
+ * {@link TranspositionTable}, so the helper threads fill the table with
+ * results the main thread then finds instead of searching. The main thread's
+ * result is returned once it finishes, and the helpers are stopped.
+ *
+ * <p>With one thread, no helpers are started and the result is exactly that
+ * of a single {@code Search}, so it is deterministic for a depth or node
+ * budget.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+  /** The searches, the first being the main one. */
+  private final Search[] searches;
+
+  /** The table shared by all of the searches. */
+  private final TranspositionTable table;
+
+  /** The threads running the helper searches, or null if there are none. */
+  private final ExecutorService helpers;
+
+  public ParallelSearch(int threads) {
+    this(threads, new TranspositionTable());
+  }
+
+  public ParallelSearch(int threads, TranspositionTable table) {
+    this.table = (table == null) ? new TranspositionTable() : table;
+    this.searches = new Search[Math.max(1, threads)];
+    for (int i = 0; i < searches.length; i++) {
+      searches[i] = new Search(this.table);
+      searches[i].setHelper(i);
+      searches[i].setAgesTable(false);
+    }
+    this.helpers = searches.length == 1 ? null : Executors.newFixedThreadPool(
+      searches.length - 1,
+      r -> {
+        Thread t = new Thread(r, "search-helper");
+        t.setDaemon(true);
+        return t;
+      }
+    );
+  }
+
+  public int getThreads() {
+    return searches.length;
+  }
+
+  public TranspositionTable getTranspositionTable() {
+    return table;
+  }
+
+  /**
+   * Sets the scorer of positions used by every thread (see
+   * {@link Search#setEvaluator}).
+   */
+  public void setEvaluator(Evaluator evaluator) {
+    for (Search search : searches) {
+      search.setEvaluator(evaluator);
+    }
+  }
+
+  public void setMaxDepth(int maxDepth) {
+    for (Search search : searches) {
+      search.setMaxDepth(maxDepth);
+    }
+  }
+
+  /**
+   * Sets the time budget in milliseconds, or 0 for none.
+   */
+  public void setTimeLimit(long timeLimit) {
+    for (Search search : searches) {
+      search.setTimeLimit(timeLimit);
+    }
+  }
+
+  /**
+   * Sets the node budget of the main search, or 0 for none. Helpers stop
+   * when the main search does.
+   */
+  public void setNodeLimit(long nodeLimit) {
+    searches[0].setNodeLimit(nodeLimit);
+  }
+
+  /**
+   * Stops the current search as soon as possible.
+   */
+  public void stop() {
+    for (Search search : searches) {
+      search.stop();
+    }
+  }
+
+  /**
+   * Searches the current position of a game.
+   */
+  public SearchResult search(Game game) {
+    return search(game.getPosition());
+  }
+
+  /**
+   * Searches a position.
+   */
+  public SearchResult search(Position position) {
+    return search(
+      position.getBlackBits(),
+      position.getWhiteBits(),
+      position.getKingBits(),
+      position.isP1Turn(),
+      position.getSkipIndex()
+    );
+  }
+
+  /**
+   * Searches a position on every thread and returns the main search's result,
+   * with the nodes visited by all of the threads.
+   */
+  public SearchResult search(int black, int white, int kings, boolean isP1Turn, int skipIndex) {
+    // Age the shared table once, then read the stop counts so no stop is missed
+    table.newSearch();
+    long[] stopCounts = new long[searches.length];
+    for (int i = 0; i < searches.length; i++) {
+      stopCounts[i] = searches[i].getStopCount();
+    }
+    if (helpers == null) {
+      return searches[0].search(black, white, kings, isP1Turn, skipIndex, stopCounts[0]);
+    }
+
+    // Start the helpers, then search on the calling thread
+    List<Future<SearchResult>> futures = new ArrayList<>();
+    for (int i = 1; i < searches.length; i++) {
+      Search helper = searches[i];
+      long stopCount = stopCounts[i];
+      futures.add(helpers.submit(() ->
+        helper.search(black, white, kings, isP1Turn, skipIndex, stopCount)));
+    }
+    SearchResult main = searches[0].search(black, white, kings, isP1Turn, skipIndex,
+      stopCounts[0]);
+
+    // Stop the helpers; one that has not started yet stops as soon as it does
+    long nodes = main.getNodes();
+    for (int i = 1; i < searches.length; i++) {
+      searches[i].stop();
+    }
+    for (Future<SearchResult> future : futures) {
+      try {
+        nodes += future.get().getNodes();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+
+    return new SearchResult(main.getBestMove(), main.getScore(), main.getDepth(), nodes,
+      main.getNanos(), main.getPrincipalVariation());
+  }
+
+  /**
+   * Stops the helper threads.
+   */
+  @Override
+  public void close() {
+    if (helpers != null) {
+      stop();
+      helpers.shutdownNow();
+    }
+  }
+}
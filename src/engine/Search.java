@@ -0,0 +1,527 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import logic.BitboardGenerator;
+import model.Board;
+import model.Game;
+import model.Move;
+import model.MoveList;
+import model.Position;
+import model.Zobrist;
+
+/**
+ * Finds the best move for the side to move using iterative-deepening negamax
+ * with alpha-beta pruning. The search works on the raw bit-planes of the board
+ * and reuses one {@link MoveList} per ply, so it does not allocate per
+ * position. A search stops at the maximum depth, or earlier when its time or
+ * node budget runs out, and returns the last completed iteration. Positions
+ * at the end of the search are scored by an {@link Evaluator}.
+ *
+ * <p>If given a {@link TranspositionTable}, the search keeps an incremental
+ * Zobrist hash of each position and uses the table to cut off positions that
+ * were already searched deeply enough and to try their best move first. The
+ * table may be shared with searches running on other threads.
+ *
+ * <p>A {@code Search} keeps per-ply buffers, so an instance must only be used
+ * by one thread at a time.
+ */
+public class Search {
+
+  /** The deepest ply the search will reach, including capture extensions. */
+  public static final int MAX_PLY = 128;
+
+  /** The score of a won position, minus the plies it takes to win. */
+  public static final int WIN = 30000;
+
+  /** Scores beyond this are wins or losses found by the search. */
+  public static final int WIN_THRESHOLD = WIN - MAX_PLY;
+
+  /**
+   * The score of a position the endgame database has as won, minus the plies
+   * it takes to win. It is below {@link #WIN_THRESHOLD}, so the search keeps
+   * deepening to find the fastest win rather than stopping at the first.
+   */
+  public static final int TABLEBASE_WIN = 20000;
+
+  /**
+   * Scores beyond this are wins or losses, found by the search or the
+   * endgame database, and are stored relative to the position.
+   */
+  public static final int TABLEBASE_THRESHOLD = TABLEBASE_WIN - MAX_PLY - Tablebase.MAX_DISTANCE;
+
+  /** The default maximum depth, in plies. */
+  public static final int DEFAULT_MAX_DEPTH = 12;
+
+  /** How many nodes are visited between checks of the time budget. */
+  private static final int CHECK_INTERVAL = 1024;
+
+  /** The table of earlier results, or null to search without one. */
+  private TranspositionTable table;
+
+  /** The endgame database to probe, or null to search without one. */
+  private Tablebase tablebase;
+
+  /** The scorer of positions at the end of the search. */
+  private Evaluator evaluator = DefaultEvaluator.DEFAULT;
+
+  /** The receiver of each completed iteration's result, or null for none. */
+  private SearchListener listener;
+
+  /** The moves generated at each ply. */
+  private final MoveList[] moves;
+
+  /** The triangular table holding the principal variation of each ply. */
+  private final long[][] pv;
+
+  /** The length of the principal variation of each ply. */
+  private final int[] pvLength;
+
+  /** The principal variation of the last completed iteration. */
+  private final long[] lastPv;
+
+  /** The length of the principal variation of the last completed iteration. */
+  private int lastPvLength;
+
+  /** The depth of the iteration being searched. */
+  private int iterationDepth;
+
+  /** The helper number of a parallel search thread, or 0 for the main one. */
+  private int helper;
+
+  /** The flag indicating each search starts a new age of the table. */
+  private boolean agesTable = true;
+
+  /** The maximum depth to search to. */
+  private int maxDepth = DEFAULT_MAX_DEPTH;
+
+  /** The time budget in milliseconds, or 0 for none. */
+  private long timeLimit;
+
+  /** The node budget, or 0 for none. */
+  private long nodeLimit;
+
+  /** The number of nodes visited by the current search. */
+  private long nodes;
+
+  /** The time at which the current search must stop, in nanoseconds. */
+  private long deadline;
+
+  /** The flag indicating the current search was stopped or ran out of budget. */
+  private volatile boolean stopped;
+
+  /** The number of calls to {@link #stop}, each of which ends earlier searches. */
+  private final AtomicLong stops = new AtomicLong();
+
+  public Search() {
+    this(null);
+  }
+
+  public Search(TranspositionTable table) {
+    this.table = table;
+    this.moves = new MoveList[MAX_PLY + 1];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = new MoveList();
+    }
+    this.pv = new long[MAX_PLY + 1][MAX_PLY + 1];
+    this.pvLength = new int[MAX_PLY + 1];
+    this.lastPv = new long[MAX_PLY + 1];
+  }
+
+  public TranspositionTable getTranspositionTable() {
+    return table;
+  }
+
+  public void setTranspositionTable(TranspositionTable table) {
+    this.table = table;
+  }
+
+  public Tablebase getTablebase() {
+    return tablebase;
+  }
+
+  /**
+   * Sets the endgame database probed for positions with few enough checkers,
+   * or null for none.
+   */
+  public void setTablebase(Tablebase tablebase) {
+    this.tablebase = tablebase;
+  }
+
+  public Evaluator getEvaluator() {
+    return evaluator;
+  }
+
+  /**
+   * Sets the scorer of positions at the end of the search, or null for
+   * {@link DefaultEvaluator#DEFAULT}.
+   */
+  public void setEvaluator(Evaluator evaluator) {
+    this.evaluator = (evaluator == null) ? DefaultEvaluator.DEFAULT : evaluator;
+  }
+
+  public SearchListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Sets the receiver of each completed iteration's result, or null for
+   * none. It is called on the thread running the search.
+   */
+  public void setListener(SearchListener listener) {
+    this.listener = listener;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public void setMaxDepth(int maxDepth) {
+    this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY));
+  }
+
+  public long getTimeLimit() {
+    return timeLimit;
+  }
+
+  /**
+   * Sets the time budget of a search in milliseconds, or 0 for none.
+   */
+  public void setTimeLimit(long timeLimit) {
+    this.timeLimit = Math.max(0, timeLimit);
+  }
+
+  public long getNodeLimit() {
+    return nodeLimit;
+  }
+
+  /**
+   * Sets the node budget of a search, or 0 for none.
+   */
+  public void setNodeLimit(long nodeLimit) {
+    this.nodeLimit = Math.max(0, nodeLimit);
+  }
+
+  /**
+   * Makes this search a helper of a parallel search. Helpers order the root
+   * moves differently and start at a different depth so that, sharing a
+   * transposition table, they fill in parts of the tree the main search has
+   * not reached yet.
+   */
+  void setHelper(int helper) {
+    this.helper = Math.max(0, helper);
+  }
+
+  /**
+   * Sets if each search starts a new age of the transposition table. A
+   * parallel search ages its shared table once itself, so that its threads
+   * do not treat each other's entries as old.
+   */
+  void setAgesTable(boolean agesTable) {
+    this.agesTable = agesTable;
+  }
+
+  /**
+   * Stops the current search as soon as possible. The search still returns
+   * the result of its last completed iteration.
+   *
+   * <p>A search begun with a stop count from {@link #getStopCount} is also
+   * stopped by this if it is called after the count was read, even if the
+   * search has not begun yet, so a search handed to another thread cannot
+   * miss a stop made in between.
+   */
+  public void stop() {
+    stops.incrementAndGet();
+    this.stopped = true;
+  }
+
+  /**
+   * Gets the number of stops made so far, to begin a search with that a
+   * later {@link #stop} ends.
+   */
+  public long getStopCount() {
+    return stops.get();
+  }
+
+  /**
+   * Searches the current position of a game.
+   */
+  public SearchResult search(Game game) {
+    return search(game.getPosition());
+  }
+
+  /**
+   * Searches a position.
+   */
+  public SearchResult search(Position position) {
+    return search(position, stops.get());
+  }
+
+  /**
+   * Searches a position, stopping at once if {@link #stop} was called since
+   * the stop count was read.
+   */
+  public SearchResult search(Position position, long stopCount) {
+    return search(
+      position.getBlackBits(),
+      position.getWhiteBits(),
+      position.getKingBits(),
+      position.isP1Turn(),
+      position.getSkipIndex(),
+      stopCount
+    );
+  }
+
+  /**
+   * Searches a position given by its bit-planes, the side to move and the
+   * index of the checker that must continue skipping (or -1).
+   */
+  public SearchResult search(int black, int white, int kings, boolean isP1Turn, int skipIndex) {
+    return search(black, white, kings, isP1Turn, skipIndex, stops.get());
+  }
+
+  /**
+   * Searches a position given by its bit-planes, stopping at once if
+   * {@link #stop} was called since the stop count was read.
+   */
+  public SearchResult search(int black, int white, int kings, boolean isP1Turn, int skipIndex,
+                             long stopCount) {
+    long start = System.nanoTime();
+    this.nodes = 0;
+
+    // A stop after this check also sets the flag, so none is missed
+    this.stopped = false;
+    if (stops.get() != stopCount) {
+      this.stopped = true;
+    }
+    this.deadline = timeLimit > 0 ? start + timeLimit * 1_000_000L : Long.MAX_VALUE;
+    this.lastPvLength = 0;
+    if (table != null && agesTable) {
+      table.newSearch();
+    }
+    long hash = Zobrist.hash(black, white, kings, isP1Turn, skipIndex);
+
+    // Fall back to the first legal move if not even one iteration completes
+    MoveList rootMoves = moves[0];
+    BitboardGenerator.getMoves(black, white, kings, isP1Turn, skipIndex, rootMoves);
+    if (rootMoves.isEmpty()) {
+      return new SearchResult(0, -WIN, 0, 1, System.nanoTime() - start, null);
+    }
+    long[] bestLine = {rootMoves.get(0)};
+    int bestScore = 0, completed = 0;
+
+    for (int depth = 1 + (helper & 1); depth <= maxDepth; depth++) {
+      this.iterationDepth = depth;
+      int score = negamax(black, white, kings, isP1Turn, skipIndex, hash, depth, 0,
+        -WIN - 1, WIN + 1);
+      if (stopped && (depth > 1 || pvLength[0] == 0)) {
+        break;
+      }
+      bestScore = score;
+      completed = depth;
+      bestLine = new long[pvLength[0]];
+      System.arraycopy(pv[0], 0, bestLine, 0, bestLine.length);
+      System.arraycopy(pv[0], 0, lastPv, 0, bestLine.length);
+      this.lastPvLength = bestLine.length;
+      if (listener != null) {
+        listener.iterationCompleted(new SearchResult(bestLine[0], bestScore, completed, nodes,
+          System.nanoTime() - start, bestLine));
+      }
+
+      // A forced win or loss will not change with more depth
+      if (Math.abs(score) >= WIN_THRESHOLD || stopped) {
+        break;
+      }
+    }
+
+    return new SearchResult(bestLine[0], bestScore, completed, nodes,
+      System.nanoTime() - start, bestLine);
+  }
+
+  /**
+   * Scores a position from the side to move's point of view. Once the
+   * nominal depth is reached, positions with pending skips keep being
+   * searched, since skips are forced and would otherwise hide a recapture.
+   */
+  private int negamax(
+    int black,
+    int white,
+    int kings,
+    boolean isP1Turn,
+    int skipIndex,
+    long hash,
+    int depth,
+    int ply,
+    int alpha,
+    int beta
+  ) {
+    pvLength[ply] = ply;
+    nodes++;
+    if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+      checkBudget();
+    }
+    if (stopped && ply > 0) {
+      return 0;
+    }
+
+    // The endgame database has the perfect result, so there is no need to search
+    if (tablebase != null && ply > 0 && skipIndex < 0 && tablebase.covers(black, white)) {
+      int value = tablebase.probe(black, white, kings, isP1Turn);
+      if (value != Tablebase.UNKNOWN) {
+        return value == 0 ? 0 : value > 0 ?
+            TABLEBASE_WIN - ply - Tablebase.getDistance(value) :
+            -(TABLEBASE_WIN - ply - Tablebase.getDistance(value));
+      }
+    }
+
+    MoveList list = moves[ply];
+    int n = BitboardGenerator.getMoves(black, white, kings, isP1Turn, skipIndex, list);
+    if (n == 0) {
+      return -(WIN - ply);
+    }
+    if (ply >= MAX_PLY || (depth <= 0 && !Move.isSkip(list.get(0)))) {
+      return evaluator.evaluate(black, white, kings, isP1Turn);
+    }
+
+    // Use an earlier result for this position if it is deep enough
+    long entry = table == null ? 0 : table.probe(hash);
+    if (entry != 0 && ply > 0 && TranspositionTable.getDepth(entry) >= Math.max(depth, 0)) {
+      int score = TranspositionTable.fromTable(TranspositionTable.getScore(entry), ply);
+      int bound = TranspositionTable.getBound(entry);
+      if (bound == TranspositionTable.EXACT ||
+          (bound == TranspositionTable.LOWER && score >= beta) ||
+          (bound == TranspositionTable.UPPER && score <= alpha)) {
+        return score;
+      }
+    }
+
+    // Try the move from the previous iteration's line first, then the table's
+    orderMoves(list, ply, entry);
+    if (ply == 0 && helper > 0) {
+      rotateMoves(list, helper);
+    }
+
+    int originalAlpha = alpha;
+    int best = -WIN - 1;
+    long bestMove = 0;
+    for (int i = 0; i < n; i++) {
+      long move = list.get(i);
+      int from = 1 << Move.getStartIndex(move);
+      int to = 1 << Move.getEndIndex(move);
+      int captures = Move.getCaptures(move);
+      int nextKings = kings & ~(from | captures);
+      if ((kings & from) != 0 || Move.isPromotion(move)) {
+        nextKings |= to;
+      }
+      int nextBlack = isP1Turn ? (black & ~from) | to : black & ~captures;
+      int nextWhite = isP1Turn ? white & ~captures : (white & ~from) | to;
+      long nextHash = table == null ? 0 :
+          nextHash(hash, move, black, white, kings, isP1Turn, skipIndex);
+
+      int score = -negamax(nextBlack, nextWhite, nextKings, !isP1Turn, -1,
+        nextHash, depth - 1, ply + 1, -beta, -alpha);
+      if (stopped) {
+        return ply > 0 ? 0 : best;
+      }
+      if (score > best) {
+        best = score;
+        bestMove = move;
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = Math.max(ply + 1, pvLength[ply + 1]);
+      }
+      if (score > alpha) {
+        alpha = score;
+      }
+      if (alpha >= beta) {
+        break;
+      }
+    }
+
+    if (table != null) {
+      int bound = best >= beta ? TranspositionTable.LOWER :
+                  best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+      table.store(hash, Math.max(depth, 0), bound, TranspositionTable.toTable(best, ply), bestMove);
+    }
+    return best;
+  }
+
+  /**
+   * Updates a position's hash for a move: the checker leaves its start tile,
+   * lands (possibly crowned) on its end tile, the captured checkers are
+   * removed, any pending skip ends and the turn passes.
+   */
+  private static long nextHash(
+    long hash,
+    long move,
+    int black,
+    int white,
+    int kings,
+    boolean isP1Turn,
+    int skipIndex
+  ) {
+    int from = Move.getStartIndex(move), to = Move.getEndIndex(move);
+    boolean isKing = (kings & (1 << from)) != 0;
+    int id = isP1Turn ? (isKing ? Board.BLACK_KING : Board.BLACK_CHECKER) :
+                        (isKing ? Board.WHITE_KING : Board.WHITE_CHECKER);
+    int endId = Move.isPromotion(move) ? (isP1Turn ? Board.BLACK_KING : Board.WHITE_KING) : id;
+    hash ^= Zobrist.getKey(id, from) ^ Zobrist.getKey(endId, to) ^
+            Zobrist.getSkipKey(skipIndex) ^ Zobrist.WHITE_TURN;
+    int captures = Move.getCaptures(move);
+    while (captures != 0) {
+      int i = Integer.numberOfTrailingZeros(captures);
+      captures &= captures - 1;
+      boolean capturedKing = (kings & (1 << i)) != 0;
+      hash ^= Zobrist.getKey(isP1Turn ? (capturedKing ? Board.WHITE_KING : Board.WHITE_CHECKER) :
+                                        (capturedKing ? Board.BLACK_KING : Board.BLACK_CHECKER), i);
+    }
+    return hash;
+  }
+
+  /**
+   * Moves the principal variation move of a ply to the front, or else the
+   * best move stored in the table entry. The principal variation move comes
+   * from the previous iteration's line and is often not legal here, in which
+   * case the table's move is used.
+   */
+  private void orderMoves(MoveList list, int ply, long entry) {
+    long pvMove = lastPvLength > ply ? lastPv[ply] : 0;
+    int tableIndex = -1;
+    for (int i = 0; i < list.size(); i++) {
+      long move = list.get(i);
+      if (move == pvMove) {
+        list.swap(0, i);
+        return;
+      }
+      if (tableIndex < 0 && TranspositionTable.isMove(entry, move)) {
+        tableIndex = i;
+      }
+    }
+    if (tableIndex > 0) {
+      list.swap(0, tableIndex);
+    }
+  }
+
+  /**
+   * Rotates every move but the first, so that helper searches start on
+   * different root moves than the main search.
+   */
+  private static void rotateMoves(MoveList list, int offset) {
+    int n = list.size() - 1;
+    for (int k = 0; n > 1 && k < offset % n; k++) {
+      for (int i = 1; i < n; i++) {
+        list.swap(i, i + 1);
+      }
+    }
+  }
+
+  /**
+   * Stops the search if it ran out of time or nodes. The first iteration is
+   * always completed so there is a move to play.
+   */
+  private void checkBudget() {
+    if (iterationDepth > 1 &&
+        ((nodeLimit > 0 && nodes >= nodeLimit) || System.nanoTime() >= deadline)) {
+      this.stopped = true;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package engine;
+
+import model.Game;
+
+/**
+ * Measures how parallel search scales with the number of threads. For each
+ * thread count from 1 up to the maximum (doubling each time), every position
+ * of a fixed suite is searched to a fixed depth with a fresh transposition
+ * table, and the total time-to-depth and nodes per second are reported.
+ *
+ * <p>Usage: {@code java engine.SearchBenchmark [maxThreads] [depth] [tableMB]}
+ */
+public class SearchBenchmark {
+
+  /** The positions searched, as game state strings, from opening to endgame. */
+  public static final String[] POSITIONS = {
+    "666666666666000000004444444444441-1",
+    "666660666666040000004044044444441-1",
+    "666660066606400006400000444444440-1",
+    "606060666666400004000060404444441-1",
+    "606600000006006000004000006444440-1",
+    "006060660664066000004440004400441-1",
+    "600660400460000000004000400644040-1",
+    "006506000660460040404060000040041-1",
+    "000000060606060006404404000400000-1",
+  };
+
+  public static void main(String[] args) {
+    int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) :
+        Runtime.getRuntime().availableProcessors();
+    int depth = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+    int tableMB = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+    // Warm up the JIT so the single-thread baseline is not penalised
+    run(1, Math.min(depth, 10), tableMB);
+
+    System.out.printf("%-8s %12s %14s %14s %8s%n", "threads", "time (ms)", "nodes", "nodes/sec", "speedup");
+    double baseline = 0;
+    for (int threads = 1; threads <= maxThreads;
+         threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)) {
+      long[] result = run(threads, depth, tableMB);
+      double millis = result[0] / 1e6;
+      if (threads == 1) {
+        baseline = millis;
+      }
+      System.out.printf("%-8d %12.1f %14d %14.0f %8.2f%n", threads, millis, result[1],
+        result[1] / (millis / 1000), baseline / millis);
+    }
+  }
+
+  /**
+   * Searches every position of the suite with a thread count.
+   *
+   * @return the total nanoseconds and nodes taken.
+   */
+  private static long[] run(int threads, int depth, int tableMB) {
+    long nanos = 0, nodes = 0;
+    for (String position : POSITIONS) {
+      try (ParallelSearch search = new ParallelSearch(threads, new TranspositionTable(tableMB))) {
+        search.setMaxDepth(depth);
+        SearchResult result = search.search(new Game(position));
+        nanos += result.getNanos();
+        nodes += result.getNodes();
+      }
+    }
+    return new long[] {nanos, nodes};
+  }
+}
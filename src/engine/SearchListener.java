@@ -0,0 +1,17 @@
+package engine;
+
+/**
+ * Receives the progress of a {@link Search}: the best move, score and line of
+ * each iteration as it completes, so a caller can show the result improving
+ * while the search deepens.
+ *
+ * <p>It is called on the thread running the search, between iterations, so
+ * it should return quickly; the search may call {@link Search#stop} from it.
+ */
+public interface SearchListener {
+
+  /**
+   * Receives the result of the iteration that just completed.
+   */
+  void iterationCompleted(SearchResult result);
+}
@@ -0,0 +1,101 @@
+package engine;
+
+import java.util.Arrays;
+import model.Move;
+
+/**
+ * The outcome of a search: the best move found, its score and the principal
+ * variation, along with the work it took to find them.
+ */
+public class SearchResult {
+
+  /** The best packed move, or 0 if the side to move has no moves. */
+  private final long bestMove;
+
+  /** The score of the best move from the side to move's point of view. */
+  private final int score;
+
+  /** The last depth that was completely searched. */
+  private final int depth;
+
+  /** The number of positions visited. */
+  private final long nodes;
+
+  /** The time the search took, in nanoseconds. */
+  private final long nanos;
+
+  /** The expected line of play, starting with the best move. */
+  private final long[] pv;
+
+  public SearchResult(long bestMove, int score, int depth, long nodes, long nanos, long[] pv) {
+    this.bestMove = bestMove;
+    this.score = score;
+    this.depth = depth;
+    this.nodes = nodes;
+    this.nanos = nanos;
+    this.pv = (pv == null) ? new long[0] : pv;
+  }
+
+  public long getBestMove() {
+    return bestMove;
+  }
+
+  public boolean hasMove() {
+    return pv.length > 0;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  /**
+   * Gets the number of positions visited per millisecond.
+   */
+  public long getNodesPerMilli() {
+    return nanos <= 0 ? nodes : nodes * 1_000_000L / nanos;
+  }
+
+  public long[] getPrincipalVariation() {
+    return pv.clone();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder line = new StringBuilder();
+    for (long move : pv) {
+      line.append(line.length() == 0 ? "" : " ")
+          .append(Move.getStartIndex(move))
+          .append(Move.isSkip(move) ? 'x' : '-')
+          .append(Move.getEndIndex(move));
+    }
+    return getClass().getSimpleName() + "[depth=" + depth + ", score=" + score +
+        ", nodes=" + nodes + ", pv=" + line + "]";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof SearchResult)) {
+      return false;
+    }
+    SearchResult other = (SearchResult) obj;
+    return bestMove == other.bestMove && score == other.score &&
+           depth == other.depth && Arrays.equals(pv, other.pv);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(bestMove) * 31 + score;
+  }
+}
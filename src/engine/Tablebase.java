@@ -0,0 +1,222 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import model.Adjudicator;
+
+/**
+ * Probes an endgame database giving the perfect result of every position
+ * with few enough checkers. The database file is written by
+ * {@link TablebaseGenerator} and read through memory-mapped buffers, so the
+ * operating system shares its pages between every JVM probing it.
+ *
+ * <p>Positions are grouped into slices by material (the number of black
+ * checkers, black kings, white checkers and white kings). Within a slice,
+ * each position has one byte: 0 for a draw, {@code d > 0} for a win for the
+ * side to move in {@code d} plies, and {@code -(d + 1)} for a loss in
+ * {@code d} plies.
+ */
+public class Tablebase implements Adjudicator {
+
+  /** The value returned for positions the database does not cover. */
+  public static final int UNKNOWN = Adjudicator.UNKNOWN;
+
+  /** The magic number at the start of a database file ("CKTB"). */
+  static final int MAGIC = 0x434B5442;
+
+  /** The version of the file format. */
+  static final int VERSION = 1;
+
+  /** The largest distance in plies a value can hold. */
+  public static final int MAX_DISTANCE = 127;
+
+  /** The largest number of checkers a database can be generated for. */
+  public static final int MAX_PIECES = 5;
+
+  /** The binomial coefficients C(n, k) for n up to 32. */
+  private static final long[][] BINOMIAL = new long[33][MAX_PIECES + 1];
+
+  static {
+    for (int n = 0; n <= 32; n++) {
+      BINOMIAL[n][0] = 1;
+      for (int k = 1; k <= MAX_PIECES; k++) {
+        BINOMIAL[n][k] = n == 0 ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+      }
+    }
+  }
+
+  /** The most checkers in any position of the database. */
+  private final int maxPieces;
+
+  /** The values of each slice, by material signature. */
+  private final Map<Integer, ByteBuffer> slices;
+
+  Tablebase(int maxPieces, Map<Integer, ByteBuffer> slices) {
+    this.maxPieces = maxPieces;
+    this.slices = slices;
+  }
+
+  /**
+   * Opens a database file, mapping each slice into memory read-only.
+   */
+  public static Tablebase open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.BIG_ENDIAN);
+      channel.read(header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not a tablebase file: " + path);
+      }
+      int maxPieces = header.getInt();
+      int count = header.getInt();
+
+      ByteBuffer table = ByteBuffer.allocate(count * 16);
+      channel.read(table, 16);
+      table.flip();
+      Map<Integer, ByteBuffer> slices = new HashMap<>();
+      for (int i = 0; i < count; i++) {
+        int signature = table.getInt();
+        long offset = table.getLong();
+        int size = table.getInt();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        slices.put(signature, buffer);
+      }
+      return new Tablebase(maxPieces, slices);
+    }
+  }
+
+  public int getMaxPieces() {
+    return maxPieces;
+  }
+
+  /**
+   * Checks if the database has the result of a position.
+   */
+  public boolean covers(int black, int white) {
+    return Integer.bitCount(black | white) <= maxPieces && black != 0 && white != 0;
+  }
+
+  /**
+   * Gets the result of a position from the side to move's point of view.
+   *
+   * @return 0 for a draw, {@code d > 0} for a win in {@code d} plies,
+   *         {@code -(d + 1)} for a loss in {@code d} plies, or
+   *         {@link #UNKNOWN} if the position is not covered.
+   */
+  @Override
+  public int probe(int black, int white, int kings, boolean isP1Turn) {
+    if (!covers(black, white)) {
+      return UNKNOWN;
+    }
+    ByteBuffer slice = slices.get(getSignature(black, white, kings));
+    if (slice == null) {
+      return UNKNOWN;
+    }
+    return slice.get((int) getIndex(black, white, kings, isP1Turn));
+  }
+
+  /**
+   * Checks if a probed value is a win for the side to move.
+   */
+  public static boolean isWin(int value) {
+    return value != UNKNOWN && value > 0;
+  }
+
+  /**
+   * Checks if a probed value is a loss for the side to move.
+   */
+  public static boolean isLoss(int value) {
+    return value != UNKNOWN && value < 0;
+  }
+
+  /**
+   * Gets the number of plies until a won or lost position is decided.
+   */
+  public static int getDistance(int value) {
+    return value > 0 ? value : -value - 1;
+  }
+
+  /**
+   * Gets the material signature of a position: 4 bits each for the number of
+   * black checkers, black kings, white checkers and white kings.
+   */
+  static int getSignature(int black, int white, int kings) {
+    return Integer.bitCount(black & ~kings) |
+           Integer.bitCount(black & kings) << 4 |
+           Integer.bitCount(white & ~kings) << 8 |
+           Integer.bitCount(white & kings) << 12;
+  }
+
+  /**
+   * Gets the number of positions in a slice, including impossible ones where
+   * checkers overlap.
+   */
+  static long getSize(int signature) {
+    long size = 2;
+    for (int shift = 0; shift < 16; shift += 4) {
+      size *= BINOMIAL[32][(signature >>> shift) & 15];
+    }
+    return size;
+  }
+
+  /**
+   * Gets the index of a position within its slice. Each group of checkers is
+   * ranked as a combination of tiles, and the side to move is the lowest bit.
+   */
+  static long getIndex(int black, int white, int kings, boolean isP1Turn) {
+    long index = rank(white & kings);
+    index = index * BINOMIAL[32][Integer.bitCount(white & ~kings)] + rank(white & ~kings);
+    index = index * BINOMIAL[32][Integer.bitCount(black & kings)] + rank(black & kings);
+    index = index * BINOMIAL[32][Integer.bitCount(black & ~kings)] + rank(black & ~kings);
+    return index * 2 + (isP1Turn ? 1 : 0);
+  }
+
+  /**
+   * Decodes an index within a slice into the four groups of checkers (black
+   * checkers, black kings, white checkers, white kings).
+   */
+  static void getGroups(int signature, long index, int[] groups) {
+    index >>>= 1;
+    for (int g = 0; g < 4; g++) {
+      int k = (signature >>> (4 * g)) & 15;
+      long n = BINOMIAL[32][k];
+      groups[g] = unrank(index % n, k);
+      index /= n;
+    }
+  }
+
+  /**
+   * Ranks a set of tiles among all sets of the same size (colex order).
+   */
+  private static long rank(int bits) {
+    long rank = 0;
+    for (int i = 1; bits != 0; i++) {
+      rank += BINOMIAL[Integer.numberOfTrailingZeros(bits)][i];
+      bits &= bits - 1;
+    }
+    return rank;
+  }
+
+  /**
+   * Finds the set of {@code k} tiles with a rank.
+   */
+  private static int unrank(long rank, int k) {
+    int bits = 0, tile = 32;
+    for (int i = k; i >= 1; i--) {
+      tile--;
+      while (BINOMIAL[tile][i] > rank) {
+        tile--;
+      }
+      bits |= 1 << tile;
+      rank -= BINOMIAL[tile][i];
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,359 @@
+package engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import logic.BitboardGenerator;
+import model.Move;
+import model.MoveList;
+
+/**
+ * Builds an endgame database (see {@link Tablebase}) for every position with
+ * up to a given number of checkers, by backward induction.
+ *
+ * <p>Slices are solved from the fewest checkers up, and within a piece count
+ * from the fewest uncrowned checkers up, so every capture or crowning leads to
+ * a slice that is already solved. Within a slice, positions with no moves are
+ * lost in 0 plies. The rest are decided in order of distance: a position is
+ * won in {@code d} plies if its best move leads to a position lost in
+ * {@code d - 1}, and lost in {@code d} plies if all its moves lead to won
+ * positions, the slowest won in {@code d - 1}. Deciding in distance order
+ * makes every distance exact: the fastest win for the winner and the longest
+ * resistance for the loser. Rather than sweeping the slice once per
+ * distance, each newly decided position queues the positions that can move
+ * to it for the next distance, and a position waiting on another slice is
+ * queued for the distance that slice decides it at. Positions never decided
+ * are draws.
+ */
+public class TablebaseGenerator {
+
+  /** The marker of impossible positions (overlapping or uncrowned on the last row). */
+  private static final byte IMPOSSIBLE = Byte.MIN_VALUE;
+
+  /** The largest distance that can be stored. */
+  private static final int MAX_DISTANCE = 126;
+
+  /** The solved slices, by material signature. */
+  private final Map<Integer, byte[]> solved = new LinkedHashMap<>();
+
+  /** The move list used while solving. */
+  private final MoveList moves = new MoveList();
+
+  /** The groups of checkers of the position being solved. */
+  private final int[] groups = new int[4];
+
+  /**
+   * The positions of the slice being solved to decide at each distance. The
+   * last queue holds every position beyond the largest distance stored.
+   */
+  private final IndexList[] queues = new IndexList[MAX_DISTANCE + 3];
+
+  /** The distance the last position evaluated may be decided at, or 0 for none. */
+  private int nextDistance;
+
+  public TablebaseGenerator() {
+    for (int d = 0; d < queues.length; d++) {
+      queues[d] = new IndexList();
+    }
+  }
+
+  /**
+   * Generates a database for up to a number of checkers and writes it to a
+   * file.
+   *
+   * <p>Usage: {@code java engine.TablebaseGenerator [pieces] [file]}
+   */
+  public static void main(String[] args) throws IOException {
+    int pieces = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    Path path = Paths.get(args.length > 1 ? args[1] : "checkers-" + pieces + ".tb");
+    long start = System.nanoTime();
+    TablebaseGenerator generator = new TablebaseGenerator();
+    generator.generate(pieces);
+    generator.write(path, pieces);
+    System.out.printf("Wrote %s (%d slices, %d bytes) in %.1f s%n", path,
+      generator.solved.size(), Files.size(path), (System.nanoTime() - start) / 1e9);
+  }
+
+  /**
+   * Solves every slice with up to a number of checkers.
+   */
+  public void generate(int pieces) {
+    if (pieces < 2 || pieces > Tablebase.MAX_PIECES) {
+      throw new IllegalArgumentException("pieces must be from 2 to " + Tablebase.MAX_PIECES);
+    }
+    for (int signature : getSignatures(pieces)) {
+      solve(signature);
+    }
+  }
+
+  /**
+   * Writes the solved slices: a header (magic, version, pieces, slice count),
+   * a table of (signature, offset, size) and then each slice's values.
+   * Impossible positions are written as draws.
+   */
+  public void write(Path path, int pieces) throws IOException {
+    try (OutputStream file = Files.newOutputStream(path);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+      out.writeInt(Tablebase.MAGIC);
+      out.writeInt(Tablebase.VERSION);
+      out.writeInt(pieces);
+      out.writeInt(solved.size());
+      long offset = 16 + 16L * solved.size();
+      for (Map.Entry<Integer, byte[]> entry : solved.entrySet()) {
+        out.writeInt(entry.getKey());
+        out.writeLong(offset);
+        out.writeInt(entry.getValue().length);
+        offset += entry.getValue().length;
+      }
+      for (byte[] values : solved.values()) {
+        for (int i = 0; i < values.length; i++) {
+          out.write(values[i] == IMPOSSIBLE ? 0 : values[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates an in-memory database of the solved slices.
+   */
+  public Tablebase toTablebase(int pieces) {
+    Map<Integer, ByteBuffer> slices = new HashMap<>();
+    for (Map.Entry<Integer, byte[]> entry : solved.entrySet()) {
+      slices.put(entry.getKey(), ByteBuffer.wrap(entry.getValue()).asReadOnlyBuffer());
+    }
+    return new Tablebase(pieces, slices);
+  }
+
+  /**
+   * Lists the signatures of every slice with both colours present and up to
+   * a number of checkers, in an order where captures and crownings only lead
+   * to earlier slices.
+   */
+  static List<Integer> getSignatures(int pieces) {
+    List<Integer> signatures = new ArrayList<>();
+    for (int total = 2; total <= pieces; total++) {
+      for (int men = 0; men <= total; men++) {
+        for (int bm = 0; bm <= men; bm++) {
+          int wm = men - bm;
+          for (int bk = 0; bk <= total - men; bk++) {
+            int wk = total - men - bk;
+            if (bm + bk > 0 && wm + wk > 0) {
+              signatures.add(bm | bk << 4 | wm << 8 | wk << 12);
+            }
+          }
+        }
+      }
+    }
+    return signatures;
+  }
+
+  /**
+   * Solves one slice, whose successors in other slices are already solved.
+   */
+  private void solve(int signature) {
+    long size = Tablebase.getSize(signature);
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Slice too large: " + Integer.toHexString(signature));
+    }
+    byte[] values = new byte[(int) size];
+    solved.put(signature, values);
+
+    // Mark impossible positions and those already lost (no moves)
+    for (int i = 0; i < values.length; i++) {
+      Tablebase.getGroups(signature, i, groups);
+      int black = groups[0] | groups[1], white = groups[2] | groups[3];
+      boolean overlap = Integer.bitCount(black | white) != Integer.bitCount(groups[0]) +
+          Integer.bitCount(groups[1]) + Integer.bitCount(groups[2]) + Integer.bitCount(groups[3]);
+      if (overlap || (groups[0] & BitboardGenerator.BLACK_KING_ROW) != 0 ||
+          (groups[2] & BitboardGenerator.WHITE_KING_ROW) != 0) {
+        values[i] = IMPOSSIBLE;
+      } else if (BitboardGenerator.getMoves(black, white, groups[1] | groups[3],
+          (i & 1) != 0, -1, moves) == 0) {
+        values[i] = -1;
+      }
+    }
+
+    // Decide what the solved slices already decide, and queue the rest for later
+    for (IndexList queue : queues) {
+      queue.clear();
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == 0) {
+        decide(signature, values, i, 1);
+      }
+    }
+
+    // Then decide the queued positions in order of distance
+    int last = queues.length - 1;
+    for (int distance = 2; distance <= last; distance++) {
+      IndexList queue = queues[distance];
+      for (int j = 0; j < queue.size(); j++) {
+        int i = queue.get(j);
+        if (values[i] == 0) {
+          decide(signature, values, i, distance < last ? distance : Integer.MAX_VALUE);
+        }
+      }
+      queue.clear();
+    }
+  }
+
+  /**
+   * Decides a position if it is won or lost in a number of plies, and queues
+   * the positions of the slice that can move to it for the next distance.
+   * Otherwise queues it for the distance it may be decided at, if any.
+   */
+  private void decide(int signature, byte[] values, int index, int distance) {
+    Tablebase.getGroups(signature, index, groups);
+    boolean isP1Turn = (index & 1) != 0;
+    byte value = evaluate(signature, values, isP1Turn, distance);
+    if (value != 0) {
+      values[index] = value;
+      // The last queue takes every longer distance, and is searched with no bound
+      int last = queues.length - 1;
+      queuePredecessors(values, isP1Turn, distance >= last ? last : distance + 1);
+    } else if (nextDistance > distance) {
+      queue(index, nextDistance);
+    }
+  }
+
+  /**
+   * Queues the undecided positions of the slice that can reach the position
+   * in {@link #groups} with a simple move. Moves that capture or crown lead
+   * from other slices, which are decided later.
+   */
+  private void queuePredecessors(byte[] values, boolean isP1Turn, int distance) {
+    int black = groups[0] | groups[1], white = groups[2] | groups[3];
+    int kings = groups[1] | groups[3];
+    int empty = ~(black | white);
+
+    // The side that just moved is the one not to move
+    boolean moved = !isP1Turn;
+    int own = moved ? black : white;
+    for (int dir = 0; dir < 4; dir++) {
+      boolean forward = moved ? (dir == BitboardGenerator.DOWN_LEFT ||
+          dir == BitboardGenerator.DOWN_RIGHT) : (dir == BitboardGenerator.UP_LEFT ||
+          dir == BitboardGenerator.UP_RIGHT);
+      for (int pieces = forward ? own : own & kings; pieces != 0; pieces &= pieces - 1) {
+        int to = pieces & -pieces;
+        int from = BitboardGenerator.shift(to, BitboardGenerator.opposite(dir)) & empty;
+        if (from == 0) {
+          continue;
+        }
+        int prevBlack = moved ? (black & ~to) | from : black;
+        int prevWhite = moved ? white : (white & ~to) | from;
+        int prevKings = (kings & to) != 0 ? (kings & ~to) | from : kings;
+        int prev = (int) Tablebase.getIndex(prevBlack, prevWhite, prevKings, moved);
+        if (values[prev] == 0) {
+          queue(prev, distance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Queues a position to be decided at a distance, or at the last distance
+   * if it is beyond it.
+   */
+  private void queue(int index, int distance) {
+    queues[Math.min(distance, queues.length - 1)].add(index);
+  }
+
+  /**
+   * Works out the value of the position in {@link #groups} from its moves,
+   * if it is won or lost in a number of plies.
+   *
+   * @return the new value, or 0 if it is not decided at that distance.
+   */
+  private byte evaluate(int signature, byte[] values, boolean isP1Turn, int distance) {
+    int black = groups[0] | groups[1], white = groups[2] | groups[3];
+    int kings = groups[1] | groups[3];
+    int n = BitboardGenerator.getMoves(black, white, kings, isP1Turn, -1, moves);
+    int bestWin = Integer.MAX_VALUE, longestLoss = -1;
+    boolean allWon = true;
+    for (int j = 0; j < n; j++) {
+      long move = moves.get(j);
+      int from = 1 << Move.getStartIndex(move), to = 1 << Move.getEndIndex(move);
+      int captures = Move.getCaptures(move);
+      int nextKings = kings & ~(from | captures);
+      if ((kings & from) != 0 || Move.isPromotion(move)) {
+        nextKings |= to;
+      }
+      int nextBlack = isP1Turn ? (black & ~from) | to : black & ~captures;
+      int nextWhite = isP1Turn ? white & ~captures : (white & ~from) | to;
+
+      // The value of the next position, for the opponent
+      int value;
+      if (nextBlack == 0 || nextWhite == 0) {
+        value = -1;
+      } else {
+        int nextSignature = Tablebase.getSignature(nextBlack, nextWhite, nextKings);
+        byte[] next = nextSignature == signature ? values : solved.get(nextSignature);
+        value = next[(int) Tablebase.getIndex(nextBlack, nextWhite, nextKings, !isP1Turn)];
+      }
+
+      if (value < 0) {
+        bestWin = Math.min(bestWin, Tablebase.getDistance(value) + 1);
+        allWon = false;
+      } else if (value > 0) {
+        longestLoss = Math.max(longestLoss, value + 1);
+      } else {
+        allWon = false;
+      }
+    }
+
+    if (bestWin <= distance) {
+      return (byte) Math.min(bestWin, MAX_DISTANCE + 1);
+    }
+    if (allWon && n > 0 && longestLoss <= distance) {
+      return (byte) -(Math.min(longestLoss, MAX_DISTANCE) + 1);
+    }
+    nextDistance = bestWin != Integer.MAX_VALUE ? bestWin : allWon ? longestLoss : 0;
+    return 0;
+  }
+
+  /**
+   * A growable list of position indices.
+   */
+  private static class IndexList {
+
+    private int[] indices = new int[16];
+
+    private int size;
+
+    void add(int index) {
+      if (size == indices.length) {
+        indices = Arrays.copyOf(indices, size * 2);
+      }
+      indices[size++] = index;
+    }
+
+    int get(int i) {
+      return indices[i];
+    }
+
+    int size() {
+      return size;
+    }
+
+    /**
+     * Empties the list, releasing a large array.
+     */
+    void clear() {
+      size = 0;
+      if (indices.length > 1 << 16) {
+        indices = new int[16];
+      }
+    }
+  }
+}
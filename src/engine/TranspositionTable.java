@@ -0,0 +1,226 @@
+package engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import model.Move;
+
+/**
+ * A fixed-size table of search results keyed by Zobrist hash, shared by any
+ * number of search threads without locks.
+ *
+ * <p>The table is a single {@code long[]}. Each bucket holds two entries: the
+ * first is only replaced by a result at least as deep (or from an older
+ * search), the second is always replaced. Each entry is two longs, the key
+ * XORed with the data and the data itself, so an entry torn by two threads
+ * writing at once fails verification and reads as a miss instead of returning
+ * the wrong position's data.
+ */
+public class TranspositionTable {
+
+  /** The default size of a table, in megabytes. */
+  public static final int DEFAULT_SIZE_MB = 16;
+
+  /** The bound of a score that is exact. */
+  public static final int EXACT = 1;
+
+  /** The bound of a score that is at least the stored score (fail high). */
+  public static final int LOWER = 2;
+
+  /** The bound of a score that is at most the stored score (fail low). */
+  public static final int UPPER = 3;
+
+  /** The number of longs in one bucket (two entries of two longs). */
+  private static final int BUCKET_LONGS = 4;
+
+  /** The bit set in every stored entry so that no stored data is 0. */
+  private static final long VALID = 1L << 63;
+
+  /** The entries, as pairs of (key ^ data, data). */
+  private final long[] table;
+
+  /** The mask selecting a bucket from a key. */
+  private final int mask;
+
+  /** The generation of the current search, to age out old entries. */
+  private volatile int age;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder collisions = new LongAdder();
+  private final LongAdder stores = new LongAdder();
+
+  public TranspositionTable() {
+    this(DEFAULT_SIZE_MB);
+  }
+
+  /**
+   * Creates a table using about the given number of megabytes, rounded down
+   * to a power-of-two number of buckets.
+   */
+  public TranspositionTable(int sizeMB) {
+    long buckets = Math.max(1, (long) sizeMB * 1024 * 1024 / (BUCKET_LONGS * 8));
+    buckets = Long.highestOneBit(Math.min(buckets, Integer.MAX_VALUE / BUCKET_LONGS));
+    this.table = new long[(int) buckets * BUCKET_LONGS];
+    this.mask = (int) buckets - 1;
+  }
+
+  /**
+   * Looks up a position.
+   *
+   * @return the stored data (decoded with the static getters), or 0 if the
+   *         position is not in the table.
+   */
+  public long probe(long key) {
+    int i = ((int) key & mask) * BUCKET_LONGS;
+    boolean occupied = false;
+    for (int j = i; j < i + BUCKET_LONGS; j += 2) {
+      long data = table[j + 1];
+      if ((table[j] ^ data) == key && data != 0) {
+        hits.increment();
+        return data;
+      }
+      occupied |= data != 0;
+    }
+    misses.increment();
+    if (occupied) {
+      collisions.increment();
+    }
+    return 0;
+  }
+
+  /**
+   * Stores the result of searching a position. Win and loss scores must
+   * already be relative to the position (see {@link #toTable}).
+   */
+  public void store(long key, int depth, int bound, int score, long move) {
+    int i = ((int) key & mask) * BUCKET_LONGS;
+    long data = encode(depth, bound, score, move, age);
+
+    // Keep the deeper result in the first slot unless it is stale
+    long first = table[i + 1];
+    int j = i + 2;
+    if (first == 0 || (table[i] ^ first) == key || depth >= getDepth(first) ||
+        getAge(first) != (age & 0xFF)) {
+      j = i;
+    }
+    table[j] = key ^ data;
+    table[j + 1] = data;
+    stores.increment();
+  }
+
+  /**
+   * Starts a new search, so that entries from earlier searches are replaced
+   * first. Call it once per search, before any thread sharing the table
+   * starts searching.
+   */
+  public void newSearch() {
+    this.age = (age + 1) & 0xFF;
+  }
+
+  /**
+   * Removes every entry and resets the counters.
+   */
+  public void clear() {
+    Arrays.fill(table, 0);
+    resetCounters();
+  }
+
+  public void resetCounters() {
+    hits.reset();
+    misses.reset();
+    collisions.reset();
+    stores.reset();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of misses where the bucket held other positions.
+   */
+  public long getCollisions() {
+    return collisions.sum();
+  }
+
+  public long getStores() {
+    return stores.sum();
+  }
+
+  /**
+   * Gets the number of entries the table can hold.
+   */
+  public int getCapacity() {
+    return table.length / 2;
+  }
+
+  /**
+   * Converts a score relative to the root into one relative to the position,
+   * so that a stored win keeps its distance wherever it is found again. This
+   * covers both wins found by the search and wins from the endgame database.
+   */
+  public static int toTable(int score, int ply) {
+    if (score >= Search.TABLEBASE_THRESHOLD) {
+      return score + ply;
+    }
+    return score <= -Search.TABLEBASE_THRESHOLD ? score - ply : score;
+  }
+
+  /**
+   * Converts a stored score back into one relative to the root.
+   */
+  public static int fromTable(int score, int ply) {
+    if (score >= Search.TABLEBASE_THRESHOLD) {
+      return score - ply;
+    }
+    return score <= -Search.TABLEBASE_THRESHOLD ? score + ply : score;
+  }
+
+  public static int getDepth(long data) {
+    return (int) (data >>> 13) & 0xFF;
+  }
+
+  public static int getBound(long data) {
+    return (int) (data >>> 11) & 3;
+  }
+
+  public static int getScore(long data) {
+    return (short) (data >>> 21);
+  }
+
+  /**
+   * Checks if stored data has a best move.
+   */
+  public static boolean hasMove(long data) {
+    return (data & (1 << 10)) != 0;
+  }
+
+  /**
+   * Checks if a packed move is the stored best move. Only the start and end
+   * indices are stored, which identifies the move among those generated.
+   */
+  public static boolean isMove(long data, long move) {
+    return hasMove(data) &&
+           (int) (data & 31) == Move.getStartIndex(move) &&
+           (int) ((data >>> 5) & 31) == Move.getEndIndex(move);
+  }
+
+  private static int getAge(long data) {
+    return (int) (data >>> 37) & 0xFF;
+  }
+
+  /**
+   * Packs an entry: move (11 bits), bound (2), depth (8), score (16), age (8).
+   */
+  private static long encode(int depth, int bound, int score, long move, int age) {
+    long packedMove = move == 0 ? 0 :
+        Move.getStartIndex(move) | (Move.getEndIndex(move) << 5) | (1 << 10);
+    return VALID | packedMove | ((long) (bound & 3) << 11) |
+           ((long) Math.max(0, Math.min(depth, 0xFF)) << 13) |
+           ((long) (score & 0xFFFF) << 21) | ((long) (age & 0xFF) << 37);
+  }
+}
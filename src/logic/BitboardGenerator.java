@@ -0,0 +1,293 @@
+package logic;
+
+import model.Board;
+import model.Move;
+import model.MoveList;
+
+/**
+ * Generates every legal move for the side to move in one pass over the
+ * bit-planes of a board. Unlike {@link MoveGenerator}, which works one square
+ * at a time with {@code Point} lists, this class only uses shift-and-mask
+ * operations on {@code int} bit boards and writes its results into a
+ * caller-owned {@link MoveList}, so it allocates nothing.
+ *
+ * <p>Bit {@code i} of a bit board corresponds to the tile with index
+ * {@code i}. A generated move is a complete turn: a multi-jump is reported as
+ * a single packed move (see {@link Move#encode}) from its first start to its
+ * final landing tile, together with the mask of every checker it captured.
+ */
+public class BitboardGenerator {
+
+  /** The direction towards the bottom-left of the board (black moves down). */
+  public static final int DOWN_LEFT = 0;
+
+  /** The direction towards the bottom-right of the board. */
+  public static final int DOWN_RIGHT = 1;
+
+  /** The direction towards the top-left of the board (white moves up). */
+  public static final int UP_LEFT = 2;
+
+  /** The direction towards the top-right of the board. */
+  public static final int UP_RIGHT = 3;
+
+  /** The most tiles a move can visit: its start and up to 12 skips. */
+  public static final int MAX_PATH = 13;
+
+  /** The tiles on the row black checkers are crowned on. */
+  public static final int BLACK_KING_ROW = 0xF0000000;
+
+  /** The tiles on the row white checkers are crowned on. */
+  public static final int WHITE_KING_ROW = 0x0000000F;
+
+  /**
+   * Generates all legal moves for the side to move on a board.
+   *
+   * @return the number of moves in {@code moves}.
+   */
+  public static int getMoves(Board board, boolean isP1Turn, int skipIndex, MoveList moves) {
+    if (board == null) {
+      moves.clear();
+      return 0;
+    }
+    return getMoves(
+      board.getBlackBits(),
+      board.getWhiteBits(),
+      board.getKingBits(),
+      isP1Turn,
+      skipIndex,
+      moves
+    );
+  }
+
+  /**
+   * Generates all legal moves for the side to move from raw bit boards. Skips
+   * are mandatory, so simple moves are only generated if no skip exists. If
+   * {@code skipIndex} is a valid index, only the skips continuing from that
+   * tile are generated.
+   *
+   * @return the number of moves in {@code moves}.
+   */
+  public static int getMoves(
+    int black,
+    int white,
+    int kings,
+    boolean isP1Turn,
+    int skipIndex,
+    MoveList moves
+  ) {
+    moves.clear();
+    int own = isP1Turn ? black : white;
+    int opp = isP1Turn ? white : black;
+    int empty = ~(black | white);
+    if (Board.isValidIndex(skipIndex)) {
+      own &= 1 << skipIndex;
+    }
+
+    // Skips first, since they must be taken if there are any
+    int jumpers = getJumpers(own, opp, kings, empty, isP1Turn);
+    while (jumpers != 0) {
+      int from = Integer.numberOfTrailingZeros(jumpers);
+      jumpers &= jumpers - 1;
+      boolean isKing = (kings & (1 << from)) != 0;
+      addJumps(moves, moves.size(), from, from, empty | (1 << from), opp, 0,
+        isKing, isP1Turn);
+    }
+    if (!moves.isEmpty() || Board.isValidIndex(skipIndex)) {
+      return moves.size();
+    }
+
+    // No skips, so generate the simple moves in each direction
+    for (int dir = 0; dir < 4; dir++) {
+      int movers = getPieces(own, kings, dir, isP1Turn) & shift(empty, opposite(dir));
+      while (movers != 0) {
+        int from = Integer.numberOfTrailingZeros(movers);
+        movers &= movers - 1;
+        int to = Integer.numberOfTrailingZeros(shift(1 << from, dir));
+        boolean promotes = (kings & (1 << from)) == 0 &&
+                           ((1 << to) & (isP1Turn ? BLACK_KING_ROW : WHITE_KING_ROW)) != 0;
+        moves.add(Move.encode(from, to, 0, promotes));
+      }
+    }
+    return moves.size();
+  }
+
+  /**
+   * Expands a packed move into the tiles it visits, so that it can be played
+   * one skip at a time with {@code Game.move(int, int)}.
+   *
+   * @return the number of tiles written to {@code path}, including the start,
+   *         or 0 if the move cannot be played on the given board.
+   */
+  public static int getPath(int black, int white, int kings, long move, int[] path) {
+    int from = Move.getStartIndex(move), to = Move.getEndIndex(move);
+    if (!Board.isValidIndex(from) || !Board.isValidIndex(to)) {
+      return 0;
+    }
+    path[0] = from;
+    int captures = Move.getCaptures(move);
+    if (captures == 0) {
+      path[1] = to;
+      return 2;
+    }
+    boolean isP1Turn = (black & (1 << from)) != 0;
+    boolean isKing = (kings & (1 << from)) != 0;
+    int empty = ~(black | white) | (1 << from);
+    return findPath(path, 1, from, to, empty, captures, isKing, isP1Turn);
+  }
+
+  /**
+   * Gets the mask of checkers belonging to the side to move that can make a
+   * simple (non-skip) move.
+   */
+  public static int getMovers(int own, int kings, int empty, boolean isP1Turn) {
+    int movers = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      movers |= getPieces(own, kings, dir, isP1Turn) & shift(empty, opposite(dir));
+    }
+    return movers;
+  }
+
+  /**
+   * Gets the mask of checkers belonging to the side to move that can skip an
+   * opponent checker.
+   */
+  public static int getJumpers(int own, int opp, int kings, int empty, boolean isP1Turn) {
+    int jumpers = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      int back = opposite(dir);
+      jumpers |= getPieces(own, kings, dir, isP1Turn) & shift(opp & shift(empty, back), back);
+    }
+    return jumpers;
+  }
+
+  /**
+   * Shifts every tile in a bit board one step diagonally in a direction.
+   * Tiles that would leave the board are dropped.
+   */
+  public static int shift(int bits, int dir) {
+    switch (dir) {
+      case DOWN_LEFT:
+        return ((bits & 0x0F0F0F0F) << 4) | ((bits & 0x00E0E0E0) << 3);
+      case DOWN_RIGHT:
+        return ((bits & 0x07070707) << 5) | ((bits & 0x00F0F0F0) << 4);
+      case UP_LEFT:
+        return ((bits & 0x0F0F0F00) >>> 4) | ((bits & 0xE0E0E0E0) >>> 5);
+      case UP_RIGHT:
+        return ((bits & 0x07070700) >>> 3) | ((bits & 0xF0F0F0F0) >>> 4);
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Gets the direction opposite to a direction.
+   */
+  public static int opposite(int dir) {
+    return dir ^ 3;
+  }
+
+  /**
+   * Gets the pieces that may move in a direction: kings move in every
+   * direction, black checkers down and white checkers up.
+   */
+  private static int getPieces(int own, int kings, int dir, boolean isP1Turn) {
+    boolean forward = isP1Turn ? (dir == DOWN_LEFT || dir == DOWN_RIGHT) :
+                                 (dir == UP_LEFT || dir == UP_RIGHT);
+    return forward ? own : own & kings;
+  }
+
+  /**
+   * Follows every skip sequence from a tile, adding one move for each
+   * sequence that cannot be continued. Captured checkers are removed as soon
+   * as they are skipped and a checker that gets crowned ends the turn, as in
+   * {@code Game.move}.
+   */
+  private static void addJumps(
+    MoveList moves,
+    int first,
+    int from,
+    int at,
+    int empty,
+    int opp,
+    int captures,
+    boolean isKing,
+    boolean isP1Turn
+  ) {
+    int bit = 1 << at;
+    boolean extended = false;
+    for (int dir = 0; dir < 4; dir++) {
+      if (!isKing && (getPieces(bit, 0, dir, isP1Turn) == 0)) {
+        continue;
+      }
+      int over = shift(bit, dir) & opp;
+      int land = shift(over, dir) & empty;
+      if (land == 0) {
+        continue;
+      }
+      extended = true;
+      int to = Integer.numberOfTrailingZeros(land);
+      boolean promotes = !isKing &&
+                         (land & (isP1Turn ? BLACK_KING_ROW : WHITE_KING_ROW)) != 0;
+      if (promotes) {
+        addMove(moves, first, Move.encode(from, to, captures | over, true));
+      } else {
+        addJumps(moves, first, from, to, empty | over, opp & ~over,
+          captures | over, isKing, isP1Turn);
+      }
+    }
+    if (!extended && captures != 0) {
+      addMove(moves, first, Move.encode(from, at, captures, false));
+    }
+  }
+
+  /**
+   * Searches for an order of skips from a tile that captures exactly the
+   * remaining checkers and ends on the target tile.
+   */
+  private static int findPath(
+    int[] path,
+    int n,
+    int at,
+    int to,
+    int empty,
+    int remaining,
+    boolean isKing,
+    boolean isP1Turn
+  ) {
+    if (remaining == 0) {
+      return at == to ? n : 0;
+    }
+    int bit = 1 << at;
+    for (int dir = 0; dir < 4; dir++) {
+      if (!isKing && (getPieces(bit, 0, dir, isP1Turn) == 0)) {
+        continue;
+      }
+      int over = shift(bit, dir) & remaining;
+      int land = shift(over, dir) & empty;
+      if (land == 0) {
+        continue;
+      }
+      int next = Integer.numberOfTrailingZeros(land);
+      path[n] = next;
+      int found = findPath(path, n + 1, next, to, empty | over, remaining & ~over,
+        isKing, isP1Turn);
+      if (found > 0) {
+        return found;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Adds a move unless an identical one (a king reaching the same tile by
+   * capturing the same checkers in another order) was already generated.
+   */
+  private static void addMove(MoveList moves, int first, long move) {
+    for (int i = first; i < moves.size(); i++) {
+      if (moves.get(i) == move) {
+        return;
+      }
+    }
+    moves.add(move);
+  }
+}
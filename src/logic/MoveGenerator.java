@@ -3,13 +3,29 @@ package logic;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
+import metrics.LatencyRecorder;
+import metrics.Metrics;
 import model.Board;
+import model.Move;
+import model.MoveList;
 
 /**
  * Generates possible moves or skips for checkers on a board.
  */
 public class MoveGenerator {
 
+  /** The calls and times of finding moves, if metrics are enabled. */
+  private static final LatencyRecorder GET_MOVES = Metrics.recorder("MoveGenerator.getMoves");
+
+  /** The calls and times of finding skips, if metrics are enabled. */
+  private static final LatencyRecorder GET_SKIPS = Metrics.recorder("MoveGenerator.getSkips");
+
+  /** The directions in the order points are listed: down-right, down-left, up-right, up-left. */
+  private static final int[] POINT_ORDER = {
+    BitboardGenerator.DOWN_RIGHT, BitboardGenerator.DOWN_LEFT,
+    BitboardGenerator.UP_RIGHT, BitboardGenerator.UP_LEFT
+  };
+
   /**
    * Finds move end-points from a start point on the board.
    */
@@ -21,21 +37,63 @@ public class MoveGenerator {
    * Finds move end-points from a start index on the board.
    */
   public static List<Point> getMoves(Board board, int startIndex) {
+    long start = Metrics.start();
+    List<Point> endPoints = findMoves(board, startIndex);
+    GET_MOVES.stop(start);
+    return endPoints;
+  }
+
+  private static List<Point> findMoves(Board board, int startIndex) {
     List<Point> endPoints = new ArrayList<>();
     if (board == null || !Board.isValidIndex(startIndex)) {
       return endPoints;
     }
 
     int id = board.get(startIndex);
-    Point p = Board.toPoint(startIndex);
-    addPoints(endPoints, p, id, 1);
-
-    // Filter out points that are not empty
-    endPoints.removeIf(end -> board.get(end.x, end.y) != Board.EMPTY);
+    for (int dir : POINT_ORDER) {
+      int end = Board.getNeighbour(startIndex, dir);
+      if (canMove(id, dir) && board.get(end) == Board.EMPTY) {
+        endPoints.add(Board.toPoint(end));
+      }
+    }
 
     return endPoints;
   }
 
+  /**
+   * Fills a reusable list with the packed single-step moves from a start
+   * index, without allocating.
+   *
+   * @return the number of moves in {@code moves}.
+   */
+  public static int getMoves(Board board, int startIndex, MoveList moves) {
+    long start = Metrics.start();
+    int n = findMoves(board, startIndex, moves);
+    GET_MOVES.stop(start);
+    return n;
+  }
+
+  private static int findMoves(Board board, int startIndex, MoveList moves) {
+    moves.clear();
+    if (board == null || !Board.isValidIndex(startIndex)) {
+      return 0;
+    }
+
+    int id = board.get(startIndex);
+    int bit = 1 << startIndex, empty = ~board.getOccupiedBits();
+    for (int dir = 0; dir < 4; dir++) {
+      if (!canMove(id, dir)) {
+        continue;
+      }
+      int end = BitboardGenerator.shift(bit, dir) & empty;
+      if (end != 0) {
+        moves.add(Move.encode(startIndex, Integer.numberOfTrailingZeros(end), 0,
+          isPromotion(id, end)));
+      }
+    }
+    return moves.size();
+  }
+
   /**
    * Finds skip end-points from a start point on the board.
    */
@@ -47,21 +105,76 @@ public class MoveGenerator {
    * Finds skip end-points from a start index on the board.
    */
   public static List<Point> getSkips(Board board, int startIndex) {
+    long start = Metrics.start();
+    List<Point> endPoints = findSkips(board, startIndex);
+    GET_SKIPS.stop(start);
+    return endPoints;
+  }
+
+  private static List<Point> findSkips(Board board, int startIndex) {
     List<Point> endPoints = new ArrayList<>();
     if (board == null || !Board.isValidIndex(startIndex)) {
       return endPoints;
     }
 
     int id = board.get(startIndex);
-    Point p = Board.toPoint(startIndex);
-    addPoints(endPoints, p, id, 2);
-
-    // Remove invalid skip points
-    endPoints.removeIf(end -> !isValidSkip(board, startIndex, Board.toIndex(end)));
+    for (int dir : POINT_ORDER) {
+      int end = Board.getJump(startIndex, dir);
+      if (canMove(id, dir) && isValidSkip(board, startIndex, end)) {
+        endPoints.add(Board.toPoint(end));
+      }
+    }
 
     return endPoints;
   }
 
+  /**
+   * Fills a reusable list with the packed single skips from a start index,
+   * without allocating.
+   *
+   * @return the number of skips in {@code moves}.
+   */
+  public static int getSkips(Board board, int startIndex, MoveList moves) {
+    long start = Metrics.start();
+    int n = findSkips(board, startIndex, moves);
+    GET_SKIPS.stop(start);
+    return n;
+  }
+
+  private static int findSkips(Board board, int startIndex, MoveList moves) {
+    moves.clear();
+    if (board == null || !Board.isValidIndex(startIndex)) {
+      return 0;
+    }
+
+    int id = board.get(startIndex);
+    boolean isBlack = (id == Board.BLACK_CHECKER || id == Board.BLACK_KING);
+    int bit = 1 << startIndex, empty = ~board.getOccupiedBits();
+    int opp = isBlack ? board.getWhiteBits() : board.getBlackBits();
+    for (int dir = 0; dir < 4; dir++) {
+      if (!canMove(id, dir)) {
+        continue;
+      }
+      int over = BitboardGenerator.shift(bit, dir) & opp;
+      int end = BitboardGenerator.shift(over, dir) & empty;
+      if (end != 0) {
+        moves.add(Move.encode(startIndex, Integer.numberOfTrailingZeros(end), over,
+          isPromotion(id, end)));
+      }
+    }
+    return moves.size();
+  }
+
+  /**
+   * Checks if a checker landing on a tile is crowned there, as in
+   * {@link BitboardGenerator}: a black checker on the bottom row or a white
+   * checker on the top row. Kings are never crowned again.
+   */
+  private static boolean isPromotion(int id, int end) {
+    return (id == Board.BLACK_CHECKER && (end & BitboardGenerator.BLACK_KING_ROW) != 0) ||
+           (id == Board.WHITE_CHECKER && (end & BitboardGenerator.WHITE_KING_ROW) != 0);
+  }
+
   /**
    * Validates a potential skip move.
    */
@@ -71,11 +184,11 @@ public class MoveGenerator {
     }
 
     int id = board.get(startIndex);
-    int midID = board.get(Board.toIndex(Board.middle(startIndex, endIndex)));
+    int midID = board.get(Board.getMiddleIndex(startIndex, endIndex));
 
     // Check for validity of the skip based on checker and king IDs
     return !(id == Board.INVALID || id == Board.EMPTY || midID == Board.INVALID || midID == Board.EMPTY) &&
-           (midID == Board.BLACK_CHECKER || midID == Board.BLACK_KING) != 
+           (midID == Board.BLACK_CHECKER || midID == Board.BLACK_KING) ==
            (id == Board.WHITE_CHECKER || id == Board.WHITE_KING);
   }
 
@@ -93,4 +206,14 @@ public class MoveGenerator {
       points.add(new Point(p.x - delta, p.y - delta));
     }
   }
+
+  /**
+   * Checks if a checker may move in a direction: kings in every direction,
+   * black checkers down and white checkers up.
+   */
+  private static boolean canMove(int id, int dir) {
+    boolean down = (dir == BitboardGenerator.DOWN_LEFT || dir == BitboardGenerator.DOWN_RIGHT);
+    return id == Board.BLACK_KING || id == Board.WHITE_KING ||
+           (id == Board.BLACK_CHECKER && down) || (id == Board.WHITE_CHECKER && !down);
+  }
 }
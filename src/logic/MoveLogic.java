@@ -1,8 +1,8 @@
 package logic;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.List;
+import metrics.LatencyRecorder;
+import metrics.Metrics;
 import model.Board;
 import model.Game;
 
@@ -11,6 +11,9 @@ import model.Game;
  */
 public class MoveLogic {
 
+  /** The calls and times of move validation, if metrics are enabled. */
+  private static final LatencyRecorder VALIDATE = Metrics.recorder("MoveLogic.isValidMove");
+
   /**
    * Checks if the move is legal in the current game context.
    */
@@ -33,6 +36,19 @@ public class MoveLogic {
     int startIndex,
     int endIndex,
     int skipIndex
+  ) {
+    long start = Metrics.start();
+    boolean valid = validate(board, isP1Turn, startIndex, endIndex, skipIndex);
+    VALIDATE.stop(start);
+    return valid;
+  }
+
+  private static boolean validate(
+    Board board,
+    boolean isP1Turn,
+    int startIndex,
+    int endIndex,
+    int skipIndex
   ) {
     if (board == null || startIndex == endIndex) {
       return false;
@@ -58,22 +74,18 @@ public class MoveLogic {
       return false;
     }
 
-    Point middle = Board.middle(startIndex, endIndex);
-    int midID = board.get(Board.toIndex(middle));
-    boolean isMiddleOpponent = midID != Board.INVALID &&
-                               ((isP1Turn && (midID == Board.WHITE_CHECKER || midID == Board.WHITE_KING)) ||
-                                (!isP1Turn && (midID == Board.BLACK_CHECKER || midID == Board.BLACK_KING)));
-    return !isMiddleOpponent;
+    int midID = board.get(Board.getMiddleIndex(startIndex, endIndex));
+    boolean isMiddleOpponent = (isP1Turn && (midID == Board.WHITE_CHECKER || midID == Board.WHITE_KING)) ||
+                               (!isP1Turn && (midID == Board.BLACK_CHECKER || midID == Board.BLACK_KING));
+    return midID == Board.INVALID || isMiddleOpponent;
   }
 
   /**
    * Confirms that the move is diagonal, within proper range, and adheres to the direction rules.
    */
   private static boolean validateDistance(Board board, boolean isP1Turn, int startIndex, int endIndex) {
-    Point start = Board.toPoint(startIndex);
-    Point end = Board.toPoint(endIndex);
-    int dx = end.x - start.x;
-    int dy = end.y - start.y;
+    int dx = Board.getX(endIndex) - Board.getX(startIndex);
+    int dy = Board.getY(endIndex) - Board.getY(startIndex);
     if (Math.abs(dx) != Math.abs(dy) || Math.abs(dx) > 2) {
       return false;
     }
@@ -93,40 +105,40 @@ public class MoveLogic {
    * Checks if there are skips available for any of the player's checkers.
    */
   private static boolean hasAvailableSkips(Board board, boolean isP1Turn) {
-    List<Point> checkers = isP1Turn ? board.find(Board.BLACK_CHECKER) : board.find(Board.WHITE_CHECKER);
-    checkers.addAll(isP1Turn ? board.find(Board.BLACK_KING) : board.find(Board.WHITE_KING));
-    for (Point p : checkers) {
-      if (!MoveGenerator.getSkips(board, Board.toIndex(p)).isEmpty()) {
-        return true;
-      }
-    }
-    return false;
+    int black = board.getBlackBits(), white = board.getWhiteBits();
+    int own = isP1Turn ? black : white, opp = isP1Turn ? white : black;
+    return BitboardGenerator.getJumpers(own, opp, board.getKingBits(), ~(black | white),
+      isP1Turn) != 0;
   }
 
   /**
    * Determines if a checker is in a position where it cannot be skipped.
    */
   public static boolean isSafe(Board board, Point checker) {
-    if (board == null || checker == null) {
-      return true;
-    }
-    int index = Board.toIndex(checker);
-    if (board.get(index) == Board.EMPTY) {
+    return board == null || checker == null || isSafe(board, Board.toIndex(checker));
+  }
+
+  /**
+   * Determines if the checker on a tile cannot be skipped.
+   */
+  public static boolean isSafe(Board board, int index) {
+    if (board == null || board.get(index) == Board.EMPTY || board.get(index) == Board.INVALID) {
       return true;
     }
-    return !canBeSkipped(board, checker);
+    return !canBeSkipped(board, index);
   }
 
   /**
-   * Evaluates if a checker can be skipped by an opponent.
+   * Evaluates if a checker can be skipped by an opponent: an opponent on one
+   * side of it, allowed to move towards it, with an empty tile on the other.
    */
-  private static boolean canBeSkipped(Board board, Point checker) {
-    int id = board.get(Board.toIndex(checker));
+  private static boolean canBeSkipped(Board board, int index) {
+    int id = board.get(index);
     boolean isBlack = (id == Board.BLACK_CHECKER || id == Board.BLACK_KING);
-    List<Point> adjacentPoints = new ArrayList<>();
-    MoveGenerator.addPoints(adjacentPoints, checker, Board.BLACK_KING, 1);
-    for (Point p : adjacentPoints) {
-      if (isOpponentChecker(board, p, isBlack) && isValidSkipPosition(board, checker, p)) {
+    for (int dir = 0; dir < 4; dir++) {
+      int opponent = Board.getNeighbour(index, dir);
+      if (isOpponentChecker(board, opponent, isBlack) &&
+          isValidSkipPosition(board, opponent, Board.getNeighbour(index, dir ^ 3))) {
         return true;
       }
     }
@@ -134,26 +146,24 @@ public class MoveLogic {
   }
 
   /**
-   * Checks if a point contains an opponent's checker.
+   * Checks if a tile holds an opponent's checker.
    */
-  private static boolean isOpponentChecker(Board board, Point p, boolean isBlack) {
-    int tid = board.get(Board.toIndex(p));
+  private static boolean isOpponentChecker(Board board, int index, boolean isBlack) {
+    int tid = board.get(index);
     return (isBlack && (tid == Board.WHITE_CHECKER || tid == Board.WHITE_KING)) ||
            (!isBlack && (tid == Board.BLACK_CHECKER || tid == Board.BLACK_KING));
   }
 
   /**
-   * Validates if a skip from the given point is legal.
+   * Validates if a skip from an opponent's tile to an end tile is legal.
    */
-  private static boolean isValidSkipPosition(Board board, Point checker, Point opponentChecker) {
-    int dx = (checker.x - opponentChecker.x) * 2;
-    int dy = (checker.y - opponentChecker.y) * 2;
-    boolean isOpponentKing = (board.get(Board.toIndex(opponentChecker)) == Board.BLACK_KING ||
-                              board.get(Board.toIndex(opponentChecker)) == Board.WHITE_KING);
-    if (!isOpponentKing && (isOpponentChecker(board, opponentChecker, true) ^ (dy < 0))) {
+  private static boolean isValidSkipPosition(Board board, int opponent, int endIndex) {
+    int dy = Board.getY(endIndex) - Board.getY(opponent);
+    int tid = board.get(opponent);
+    boolean isOpponentKing = (tid == Board.BLACK_KING || tid == Board.WHITE_KING);
+    if (!isOpponentKing && (isOpponentChecker(board, opponent, true) ^ (dy < 0))) {
       return false;
     }
-    int endIndex = Board.toIndex(new Point(opponentChecker.x + dx, opponentChecker.y + dy));
-    return MoveGenerator.isValidSkip(board, Board.toIndex(opponentChecker), endIndex);
+    return MoveGenerator.isValidSkip(board, opponent, endIndex);
   }
 }
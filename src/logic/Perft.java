@@ -0,0 +1,338 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import model.Board;
+import model.Game;
+import model.Move;
+import model.MoveList;
+import model.Zobrist;
+
+/**
+ * Counts the leaf positions of the legal move tree to a fixed depth (perft).
+ * Comparing the counts with known values checks the move generator, and the
+ * time taken measures its raw throughput. A move is a complete turn, so a
+ * multi-skip counts once.
+ *
+ * <p>Counts can be made on one thread, in parallel on a fork-join pool split
+ * at the root moves, or with a hash table of sub-tree counts that makes deep
+ * counts much faster when positions repeat through transpositions.
+ * {@link #perftGame} instead walks the tree with {@link Game#move(int, int)}
+ * one skip at a time, to check the rules in {@code Game} and
+ * {@link MoveLogic} against the generator, and {@link #perftMakeUnmake}
+ * walks it with {@link Game#makeMove} and {@link Game#unmakeMove}.
+ */
+public class Perft {
+
+  /** The leaf counts from the initial position for depths 1 to 14. */
+  public static final long[] INITIAL_COUNTS = {
+    7L, 49L, 302L, 1469L, 7361L, 36768L, 179740L, 845931L, 3963680L,
+    18391564L, 85242128L, 388617999L, 1766564893L, 7977983495L
+  };
+
+  /** The move lists of each ply. */
+  private final MoveList[] moves;
+
+  /** The table of sub-tree counts, as (key ^ count, count) pairs, or null. */
+  private final long[] table;
+
+  public Perft() {
+    this(0);
+  }
+
+  /**
+   * Creates a perft counter, with a hash table of sub-tree counts using about
+   * the given number of megabytes (0 for none).
+   */
+  public Perft(int tableMB) {
+    this(createTable(tableMB));
+  }
+
+  /**
+   * Creates a perft counter using a hash table of sub-tree counts, which may
+   * be shared with counters on other threads, or null for none.
+   */
+  private Perft(long[] table) {
+    this.moves = new MoveList[64];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = new MoveList();
+    }
+    this.table = table;
+  }
+
+  /**
+   * Creates a hash table of sub-tree counts using about the given number of
+   * megabytes, or returns null for none. Each entry is checked against its
+   * key when read, so a table can be shared between threads without locks:
+   * an entry torn by two threads writing at once is just a miss.
+   */
+  private static long[] createTable(int tableMB) {
+    long entries = (long) tableMB * 1024 * 1024 / 16;
+    return entries <= 0 ? null :
+        new long[(int) Long.highestOneBit(Math.min(entries, 1 << 28)) * 2];
+  }
+
+  /**
+   * Counts the leaves of the move tree of a game to a depth.
+   */
+  public long perft(Game game, int depth) {
+    Board board = game.getBoard();
+    return perft(board.getBlackBits(), board.getWhiteBits(), board.getKingBits(),
+      game.isP1Turn(), game.getSkipIndex(), depth);
+  }
+
+  /**
+   * Counts the leaves of the move tree of a position to a depth.
+   */
+  public long perft(int black, int white, int kings, boolean isP1Turn, int skipIndex, int depth) {
+    if (depth <= 0) {
+      return 1;
+    }
+    long key = table == null ? 0 :
+        Zobrist.hash(black, white, kings, isP1Turn, skipIndex) ^ depth;
+    return count(black, white, kings, isP1Turn, skipIndex, key, depth);
+  }
+
+  /**
+   * Counts the leaves below each root move (divide), which narrows down a
+   * wrong count to the move whose sub-tree is wrong.
+   *
+   * @return the packed root moves and their counts, in generation order.
+   */
+  public long[][] divide(Game game, int depth) {
+    Board board = game.getBoard();
+    int black = board.getBlackBits(), white = board.getWhiteBits(), kings = board.getKingBits();
+    MoveList root = new MoveList();
+    BitboardGenerator.getMoves(black, white, kings, game.isP1Turn(), game.getSkipIndex(), root);
+    long[][] result = new long[root.size()][];
+    for (int i = 0; i < root.size(); i++) {
+      long move = root.get(i);
+      int[] next = play(black, white, kings, game.isP1Turn(), move);
+      result[i] = new long[] {move, perft(next[0], next[1], next[2], !game.isP1Turn(), -1, depth - 1)};
+    }
+    return result;
+  }
+
+  /**
+   * Counts the leaves of the move tree of a game in parallel, with one task
+   * per move at the top two plies. All tasks share one hash table of the
+   * given size, so a sub-tree counted by one task is reused by the others.
+   */
+  public static long perftParallel(Game game, int depth, ForkJoinPool pool, int tableMB) {
+    Board board = game.getBoard();
+    return pool.invoke(new Task(board.getBlackBits(), board.getWhiteBits(), board.getKingBits(),
+      game.isP1Turn(), game.getSkipIndex(), depth, 2, createTable(tableMB)));
+  }
+
+  /**
+   * Counts the leaves of the move tree by playing each skip through
+   * {@link Game#move(int, int)} on copies of the game. A ply ends when the
+   * turn passes. This is much slower than {@link #perft(Game, int)}, and
+   * checks that both agree.
+   */
+  public static long perftGame(Game game, int depth) {
+    if (depth <= 0) {
+      return 1;
+    }
+    long count = 0;
+    boolean isP1Turn = game.isP1Turn();
+    for (int start = 0; start < 32; start++) {
+      for (int end = 0; end < 32; end++) {
+        Game next = game.copy();
+        if (next.move(start, end)) {
+          count += perftGame(next, next.isP1Turn() == isP1Turn ? depth : depth - 1);
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Counts the leaves of the move tree of a game by playing each move in
+   * place with {@link Game#makeMove} and taking it back with
+   * {@link Game#unmakeMove}, which checks and measures those methods. The
+   * game is left as it was.
+   */
+  public long perftMakeUnmake(Game game, int depth) {
+    if (depth <= 0) {
+      return 1;
+    }
+    MoveList list = moves[depth];
+    int n = game.getMoves(list);
+    if (depth == 1) {
+      return n;
+    }
+    long total = 0;
+    for (int i = 0; i < n; i++) {
+      long move = list.get(i);
+      long undo = game.makeMove(move);
+      total += perftMakeUnmake(game, depth - 1);
+      game.unmakeMove(move, undo);
+    }
+    return total;
+  }
+
+  /**
+   * Plays a packed move on bit-planes.
+   *
+   * @return the black, white and king bit-planes after the move.
+   */
+  static int[] play(int black, int white, int kings, boolean isP1Turn, long move) {
+    int from = 1 << Move.getStartIndex(move), to = 1 << Move.getEndIndex(move);
+    int captures = Move.getCaptures(move);
+    int nextKings = kings & ~(from | captures);
+    if ((kings & from) != 0 || Move.isPromotion(move)) {
+      nextKings |= to;
+    }
+    return new int[] {
+      isP1Turn ? (black & ~from) | to : black & ~captures,
+      isP1Turn ? white & ~captures : (white & ~from) | to,
+      nextKings
+    };
+  }
+
+  /**
+   * Counts leaves recursively, using the hash table when there is one. The
+   * table key mixes in the depth so counts of different depths do not mix.
+   */
+  private long count(int black, int white, int kings, boolean isP1Turn, int skipIndex,
+                     long key, int depth) {
+    MoveList list = moves[depth];
+    int n = BitboardGenerator.getMoves(black, white, kings, isP1Turn, skipIndex, list);
+    if (depth == 1) {
+      return n;
+    }
+
+    int slot = 0;
+    if (table != null) {
+      slot = ((int) key & (table.length / 2 - 1)) * 2;
+      long stored = table[slot + 1];
+      if ((table[slot] ^ stored) == key && stored != 0) {
+        return stored;
+      }
+    }
+
+    long total = 0;
+    for (int i = 0; i < n; i++) {
+      long move = list.get(i);
+      int from = 1 << Move.getStartIndex(move), to = 1 << Move.getEndIndex(move);
+      int captures = Move.getCaptures(move);
+      int nextKings = kings & ~(from | captures);
+      if ((kings & from) != 0 || Move.isPromotion(move)) {
+        nextKings |= to;
+      }
+      int nextBlack = isP1Turn ? (black & ~from) | to : black & ~captures;
+      int nextWhite = isP1Turn ? white & ~captures : (white & ~from) | to;
+      long nextKey = table == null ? 0 :
+          Zobrist.hash(nextBlack, nextWhite, nextKings, !isP1Turn, -1) ^ (depth - 1);
+      total += count(nextBlack, nextWhite, nextKings, !isP1Turn, -1, nextKey, depth - 1);
+    }
+
+    if (table != null) {
+      table[slot] = key ^ total;
+      table[slot + 1] = total;
+    }
+    return total;
+  }
+
+  /**
+   * Runs perft for increasing depths from the initial position, checking each
+   * count against the known value and reporting the speed.
+   *
+   * <p>Usage: {@code java logic.Perft [depth] [single|parallel|parallel-hash|hash|make|game|divide]}
+   */
+  public static void main(String[] args) {
+    int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    String mode = args.length > 1 ? args[1] : "single";
+    Game game = new Game();
+
+    if (mode.equals("divide")) {
+      long total = 0;
+      for (long[] entry : new Perft().divide(game, maxDepth)) {
+        System.out.printf("%d%s%d: %d%n", Move.getStartIndex(entry[0]) + 1,
+          Move.isSkip(entry[0]) ? "x" : "-", Move.getEndIndex(entry[0]) + 1, entry[1]);
+        total += entry[1];
+      }
+      System.out.println("total: " + total);
+      return;
+    }
+
+    Perft perft = new Perft(mode.equals("hash") ? 256 : 0);
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    System.out.printf("%-6s %14s %10s %14s %s%n", "depth", "nodes", "ms", "nodes/sec", "check");
+    for (int depth = 1; depth <= maxDepth; depth++) {
+      long start = System.nanoTime();
+      long nodes;
+      switch (mode) {
+        case "parallel":
+          nodes = perftParallel(game, depth, pool, 0);
+          break;
+        case "parallel-hash":
+          nodes = perftParallel(game, depth, pool, 256);
+          break;
+        case "game":
+          nodes = perftGame(game, depth);
+          break;
+        case "make":
+          nodes = perft.perftMakeUnmake(game, depth);
+          break;
+        default:
+          nodes = perft.perft(game, depth);
+          break;
+      }
+      double millis = (System.nanoTime() - start) / 1e6;
+      String check = depth > INITIAL_COUNTS.length ? "?" :
+          INITIAL_COUNTS[depth - 1] == nodes ? "ok" : "FAIL (" + INITIAL_COUNTS[depth - 1] + ")";
+      System.out.printf("%-6d %14d %10.1f %14.0f %s%n", depth, nodes, millis,
+        nodes / Math.max(millis / 1000, 1e-9), check);
+    }
+  }
+
+  /**
+   * A fork-join task counting the leaves below a position, forking one
+   * sub-task per move until the split depth is used up.
+   */
+  private static class Task extends RecursiveTask<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int black, white, kings, skipIndex, depth, split;
+    private final boolean isP1Turn;
+
+    /** The hash table shared by every task, or null for none. */
+    private final long[] table;
+
+    Task(int black, int white, int kings, boolean isP1Turn, int skipIndex, int depth,
+         int split, long[] table) {
+      this.black = black;
+      this.white = white;
+      this.kings = kings;
+      this.isP1Turn = isP1Turn;
+      this.skipIndex = skipIndex;
+      this.depth = depth;
+      this.split = split;
+      this.table = table;
+    }
+
+    @Override
+    protected Long compute() {
+      if (split <= 0 || depth <= 2) {
+        return new Perft(table).perft(black, white, kings, isP1Turn, skipIndex, depth);
+      }
+      MoveList list = new MoveList();
+      BitboardGenerator.getMoves(black, white, kings, isP1Turn, skipIndex, list);
+      Task[] tasks = new Task[list.size()];
+      for (int i = 0; i < tasks.length; i++) {
+        int[] next = play(black, white, kings, isP1Turn, list.get(i));
+        tasks[i] = new Task(next[0], next[1], next[2], !isP1Turn, -1, depth - 1, split - 1, table);
+      }
+      invokeAll(Arrays.asList(tasks));
+      long total = 0;
+      for (Task task : tasks) {
+        total += task.join();
+      }
+      return total;
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the calls of one operation and records how long they took in a
+ * histogram. Buckets are log-linear, as in HdrHistogram: each power of two
+ * is split into {@value #SUB_BUCKETS} equal buckets, so a percentile is
+ * within an eighth of the true value at any scale, from nanoseconds to
+ * minutes, in a fixed array and without allocating per call.
+ *
+ * <p>Recording is lock-free and may be done from any thread. Reading while
+ * others record gives a close but not exact snapshot.
+ *
+ * <p>Use {@link Metrics#recorder} to get one, and time a call with
+ * {@link Metrics#start} and {@link #stop}, which do nothing at all unless
+ * metrics are enabled.
+ */
+public class LatencyRecorder implements LatencyRecorderMBean {
+
+  /** The number of bits of a time kept below its highest bit. */
+  private static final int SUB_BITS = 3;
+
+  /** The number of buckets each power of two is split into. */
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  /** The number of buckets, enough for any non-negative long. */
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  /** The name of the operation, such as {@code Game.move}. */
+  private final String name;
+
+  /** The number of calls recorded. */
+  private final LongAdder count = new LongAdder();
+
+  /** The sum of the times recorded, in nanoseconds. */
+  private final LongAdder total = new LongAdder();
+
+  /** The longest time recorded, in nanoseconds. */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /** The number of times recorded in each bucket. */
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  LatencyRecorder(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Records the time since a call to {@link Metrics#start}. If metrics are
+   * disabled, this is removed by the compiler.
+   */
+  public void stop(long start) {
+    if (Metrics.ENABLED) {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records one call that took a time in nanoseconds.
+   */
+  public void record(long nanos) {
+    nanos = Math.max(0, nanos);
+    count.increment();
+    total.add(nanos);
+    max.accumulate(nanos);
+    buckets.incrementAndGet(getBucket(nanos));
+  }
+
+  /**
+   * Gets the bucket of a time: its highest bit picks the power of two and
+   * the next {@value #SUB_BITS} bits the bucket within it.
+   */
+  static int getBucket(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Gets the largest time that falls in a bucket.
+   */
+  static long getBucketLimit(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return low + (1L << shift) - 1;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  @Override
+  public double getMeanNanos() {
+    long n = count.sum();
+    return n == 0 ? 0 : total.sum() / (double) n;
+  }
+
+  @Override
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Gets the time that a percentage of the calls took at most, rounded up
+   * to the limit of its bucket, or 0 if none were recorded.
+   */
+  public long getPercentile(double percent) {
+    long[] counts = new long[BUCKETS];
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      n += counts[i];
+    }
+    long rank = Math.max(1, (long) Math.ceil(n * Math.min(percent, 100) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS && n > 0; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(getBucketLimit(i), getMaxNanos());
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public long getP50Nanos() {
+    return getPercentile(50);
+  }
+
+  @Override
+  public long getP90Nanos() {
+    return getPercentile(90);
+  }
+
+  @Override
+  public long getP99Nanos() {
+    return getPercentile(99);
+  }
+
+  @Override
+  public long getP999Nanos() {
+    return getPercentile(99.9);
+  }
+
+  @Override
+  public void reset() {
+    count.reset();
+    total.reset();
+    max.reset();
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%-28s %12d %10.1f %9d %9d %9d %11d", name, getCount(), getMeanNanos(),
+      getP50Nanos(), getP99Nanos(), getP999Nanos(), getMaxNanos());
+  }
+}
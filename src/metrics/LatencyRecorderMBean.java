@@ -0,0 +1,32 @@
+package metrics;
+
+/**
+ * The management interface of a {@link LatencyRecorder}, as shown by JMX
+ * consoles such as JConsole under {@code checkers:type=Latency}. Times are
+ * in nanoseconds.
+ */
+public interface LatencyRecorderMBean {
+
+  String getName();
+
+  long getCount();
+
+  long getTotalNanos();
+
+  double getMeanNanos();
+
+  long getMaxNanos();
+
+  long getP50Nanos();
+
+  long getP90Nanos();
+
+  long getP99Nanos();
+
+  long getP999Nanos();
+
+  /**
+   * Clears the counts and times.
+   */
+  void reset();
+}
@@ -0,0 +1,125 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in counters and latency histograms of the hot paths: move validation
+ * and generation, playing a move, checking for game over and painting the
+ * board. Run with {@code -Dcheckers.metrics=true} to turn them on. Each
+ * {@link LatencyRecorder} is then registered with the platform MBean server
+ * as {@code checkers:type=Latency,name=<operation>}, and with
+ * {@code -Dcheckers.metrics.dump=<seconds>} a table of all of them is
+ * printed to standard output that often.
+ *
+ * <p>{@link #ENABLED} is a constant, so when metrics are off the compiler
+ * removes the timing from every call site and the hot paths cost exactly
+ * what they did without it. A timed call looks like:
+ *
+ * <pre>
+ *   long start = Metrics.start();
+ *   ...
+ *   RECORDER.stop(start);
+ * </pre>
+ */
+public final class Metrics {
+
+  /** The system property that turns metrics on. */
+  public static final String ENABLED_PROPERTY = "checkers.metrics";
+
+  /** The system property giving the seconds between dumps, if any. */
+  public static final String DUMP_PROPERTY = "checkers.metrics.dump";
+
+  /** The flag indicating calls are timed, fixed when the class loads. */
+  public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+  /** The domain of the recorders' MBean names. */
+  private static final String DOMAIN = "checkers";
+
+  /** The recorders by operation name. */
+  private static final Map<String, LatencyRecorder> RECORDERS = new ConcurrentHashMap<>();
+
+  static {
+    long seconds = Long.getLong(DUMP_PROPERTY, 0);
+    if (ENABLED && seconds > 0) {
+      startDump(seconds * 1000, System.out);
+    }
+  }
+
+  private Metrics() {}
+
+  /**
+   * Gets the recorder of an operation, creating and registering it the
+   * first time.
+   */
+  public static LatencyRecorder recorder(String name) {
+    return RECORDERS.computeIfAbsent(name, Metrics::create);
+  }
+
+  private static LatencyRecorder create(String name) {
+    LatencyRecorder recorder = new LatencyRecorder(name);
+    if (ENABLED) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(recorder,
+          new ObjectName(DOMAIN + ":type=Latency,name=" + name));
+      } catch (JMException e) {
+        System.err.println("Could not register the metrics of " + name + ": " + e.getMessage());
+      }
+    }
+    return recorder;
+  }
+
+  /**
+   * Gets the time to pass to {@link LatencyRecorder#stop}, or 0 without
+   * reading the clock if metrics are disabled.
+   */
+  public static long start() {
+    return ENABLED ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Gets every recorder, sorted by name.
+   */
+  public static List<LatencyRecorder> getRecorders() {
+    List<LatencyRecorder> recorders = new ArrayList<>(RECORDERS.values());
+    recorders.sort((a, b) -> a.getName().compareTo(b.getName()));
+    return recorders;
+  }
+
+  /**
+   * Writes a table of every recorder's count and times in nanoseconds.
+   */
+  public static void dump(PrintStream out) {
+    StringBuilder table = new StringBuilder(String.format("%-28s %12s %10s %9s %9s %9s %11s%n",
+      "operation", "count", "mean ns", "p50", "p99", "p99.9", "max"));
+    for (LatencyRecorder recorder : getRecorders()) {
+      table.append(recorder).append(System.lineSeparator());
+    }
+    out.print(table);
+    out.flush();
+  }
+
+  /**
+   * Starts dumping the table on a daemon thread at a fixed period.
+   *
+   * @return the thread's executor, to shut down to stop the dumps.
+   */
+  public static ScheduledExecutorService startDump(long periodMillis, PrintStream out) {
+    ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "metrics-dump");
+      t.setDaemon(true);
+      return t;
+    });
+    dumper.scheduleAtFixedRate(() -> dump(out), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    return dumper;
+  }
+}
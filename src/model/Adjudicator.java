@@ -0,0 +1,23 @@
+/* Name: Adjudicator
+ * Author: Saul Lara
+ * Description: This interface gives the known result of a position, such as
+ * one from an endgame database, so a game can end there without being
+ * played out.
+ */
+
+package model;
+
+public interface Adjudicator {
+
+  /** The value returned for positions whose result is not known. */
+  int UNKNOWN = Integer.MIN_VALUE;
+
+  /**
+   * Gets the result of a position from the side to move's point of view.
+   *
+   * @return 0 for a draw, {@code d > 0} for a win in {@code d} plies,
+   *         {@code -(d + 1)} for a loss in {@code d} plies, or
+   *         {@link #UNKNOWN} if the result is not known.
+   */
+  int probe(int black, int white, int kings, boolean isP1Turn);
+}
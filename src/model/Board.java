@@ -10,6 +10,7 @@ package model;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Board {
@@ -32,9 +33,55 @@ public class Board {
   /** The ID of a white checker that is also a king. */
   public static final int WHITE_KING = 4 * 1 + 2 * 0 + 1 * 1;
 
+  /** The column of each tile. */
+  private static final int[] X = new int[32];
+
+  /** The row of each tile. */
+  private static final int[] Y = new int[32];
+
+  /**
+   * The tile next to each tile in each direction, at {@code index * 4 + dir},
+   * or -1 off the board. Directions are numbered as in
+   * {@code logic.BitboardGenerator}: down-left, down-right, up-left, up-right.
+   */
+  private static final int[] NEIGHBOURS = new int[32 * 4];
+
+  /** The tile a skip lands on from each tile in each direction, or -1. */
+  private static final int[] JUMPS = new int[32 * 4];
+
+  /** The tile between each pair of tiles a skip apart, at {@code from * 32 + to}, or -1. */
+  private static final byte[] MIDDLES = new byte[32 * 32];
+
+  static {
+    Arrays.fill(MIDDLES, (byte) -1);
+    for (int i = 0; i < 32; i++) {
+      int y = i / 4, x = 2 * (i % 4) + (y + 1) % 2;
+      X[i] = x;
+      Y[i] = y;
+    }
+    for (int i = 0; i < 32; i++) {
+      for (int dir = 0; dir < 4; dir++) {
+        int dx = (dir % 2 == 0) ? -1 : 1, dy = (dir < 2) ? 1 : -1;
+        int neighbour = toIndex(X[i] + dx, Y[i] + dy);
+        int jump = toIndex(X[i] + 2 * dx, Y[i] + 2 * dy);
+        NEIGHBOURS[i * 4 + dir] = neighbour;
+        JUMPS[i * 4 + dir] = jump;
+        if (jump >= 0) {
+          MIDDLES[i * 32 + jump] = (byte) neighbour;
+        }
+      }
+    }
+  }
+
   /** The current state of the board, represented as three integers. */
   private int[] state;
 
+  /** The Zobrist hash of the checkers, updated whenever a tile is set. */
+  private long hash;
+
+  /** The number of tiles holding each ID, updated whenever a tile is set. */
+  private int[] counts;
+
   /**
    * Constructs a new checker game board, pre-filled with a new game state.
    */
@@ -42,10 +89,17 @@ public class Board {
     reset();
   }
 
+  /**
+   * Constructs a board from an existing state, without resetting it first.
+   */
+  private Board(int[] state, long hash, int[] counts) {
+    this.state = state;
+    this.hash = hash;
+    this.counts = counts;
+  }
+
   public Board copy() {
-    Board copy = new Board();
-    copy.state = state.clone();
-    return copy;
+    return new Board(state.clone(), hash, counts.clone());
   }
 
   /**
@@ -56,12 +110,182 @@ public class Board {
   public void reset() {
     // Reset the state
     this.state = new int[3];
+    this.hash = 0;
+    this.counts = new int[8];
+    counts[EMPTY] = 32;
     for (int i = 0; i < 12; i++) {
       set(i, BLACK_CHECKER);
       set(31 - i, WHITE_CHECKER);
     }
   }
 
+  /**
+   * Gets the bit mask of tiles that hold a checker of either colour. Bit
+   * {@code i} corresponds to the tile with index {@code i}.
+   */
+  public int getOccupiedBits() {
+    return state[0];
+  }
+
+  /**
+   * Gets the bit mask of tiles that hold a black checker or king.
+   */
+  public int getBlackBits() {
+    return state[0] & state[1];
+  }
+
+  /**
+   * Gets the bit mask of tiles that hold a white checker or king.
+   */
+  public int getWhiteBits() {
+    return state[0] & ~state[1];
+  }
+
+  /**
+   * Gets the bit mask of tiles that hold a king of either colour.
+   */
+  public int getKingBits() {
+    return state[0] & state[2];
+  }
+
+  /**
+   * Replaces every tile at once from bit masks of the black checkers, white
+   * checkers and kings, recomputing the hash. Tiles in both the black and
+   * white masks hold black checkers, and kings on empty tiles are ignored.
+   */
+  public void setBits(int black, int white, int kings) {
+    int occupied = black | white;
+    state[0] = occupied;
+    state[1] = black;
+    state[2] = kings & occupied;
+    this.hash = Zobrist.hash(black, white & ~black, kings & occupied);
+    countAll();
+  }
+
+  /**
+   * Gets the number of tiles holding an ID, such as {@link #BLACK_KING}, in
+   * constant time.
+   */
+  public int getCount(int id) {
+    return (id >= 0 && id < counts.length) ? counts[id] : 0;
+  }
+
+  /**
+   * Gets the number of black checkers and kings.
+   */
+  public int getBlackCount() {
+    return counts[BLACK_CHECKER] + counts[BLACK_KING];
+  }
+
+  /**
+   * Gets the number of white checkers and kings.
+   */
+  public int getWhiteCount() {
+    return counts[WHITE_CHECKER] + counts[WHITE_KING];
+  }
+
+  /**
+   * Recounts every ID from the state bits.
+   */
+  private void countAll() {
+    int black = getBlackBits(), white = getWhiteBits(), kings = state[2];
+    counts[EMPTY] = 32 - Integer.bitCount(state[0]);
+    counts[BLACK_CHECKER] = Integer.bitCount(black & ~kings);
+    counts[BLACK_KING] = Integer.bitCount(black & kings);
+    counts[WHITE_CHECKER] = Integer.bitCount(white & ~kings);
+    counts[WHITE_KING] = Integer.bitCount(white & kings);
+  }
+
+  /**
+   * Gets the Zobrist hash of the checkers on the board. It is updated in
+   * constant time by every call to {@link #set(int, int)}.
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Plays a packed move (see {@link Move#encode}) in place: the checker moves
+   * from its start to its end tile, is crowned if the move promotes it, and
+   * every captured checker is removed. The move is not validated, so it
+   * should come from a move generator for this board.
+   *
+   * @return the mask of captured tiles that held kings, which
+   *         {@link #unmakeMove} needs to restore them.
+   */
+  public int makeMove(long move) {
+    int from = 1 << Move.getStartIndex(move), to = 1 << Move.getEndIndex(move);
+    int captures = Move.getCaptures(move);
+    boolean isBlack = (state[1] & from) != 0;
+    boolean isKing = (state[2] & from) != 0;
+    int capturedKings = captures & state[2];
+    this.hash ^= getMoveHash(move, isBlack, isKing, capturedKings);
+    updateCounts(move, isBlack, isKing, capturedKings, 1);
+
+    state[0] = (state[0] & ~(from | captures)) | to;
+    state[1] = isBlack ? (state[1] & ~from) | to : state[1] & ~captures;
+    state[2] = (state[2] & ~(from | captures)) | (isKing || Move.isPromotion(move) ? to : 0);
+    return capturedKings;
+  }
+
+  /**
+   * Takes back a move played with {@link #makeMove}, restoring the board and
+   * its hash exactly.
+   */
+  public void unmakeMove(long move, int capturedKings) {
+    int from = 1 << Move.getStartIndex(move), to = 1 << Move.getEndIndex(move);
+    int captures = Move.getCaptures(move);
+    boolean isBlack = (state[1] & to) != 0;
+    boolean isKing = !Move.isPromotion(move) && (state[2] & to) != 0;
+    this.hash ^= getMoveHash(move, isBlack, isKing, capturedKings);
+    updateCounts(move, isBlack, isKing, capturedKings, -1);
+
+    state[0] = (state[0] & ~to) | from | captures;
+    state[1] = isBlack ? (state[1] & ~to) | from : state[1] | captures;
+    state[2] = (state[2] & ~to) | (isKing ? from : 0) | capturedKings;
+  }
+
+  /**
+   * Updates the counts for a move being made (sign 1) or taken back (sign
+   * -1): a crowned checker becomes a king and captured checkers leave empty
+   * tiles.
+   */
+  private void updateCounts(long move, boolean isBlack, boolean isKing, int capturedKings,
+      int sign) {
+    if (Move.isPromotion(move) && !isKing) {
+      counts[isBlack ? BLACK_CHECKER : WHITE_CHECKER] -= sign;
+      counts[isBlack ? BLACK_KING : WHITE_KING] += sign;
+    }
+    int captures = Move.getCaptures(move);
+    if (captures != 0) {
+      int kings = Integer.bitCount(capturedKings);
+      int checkers = Integer.bitCount(captures) - kings;
+      counts[isBlack ? WHITE_CHECKER : BLACK_CHECKER] -= sign * checkers;
+      counts[isBlack ? WHITE_KING : BLACK_KING] -= sign * kings;
+      counts[EMPTY] += sign * (checkers + kings);
+    }
+  }
+
+  /**
+   * Gets the change to the hash made by a move, which is the same whether
+   * the move is being made or taken back.
+   */
+  private static long getMoveHash(long move, boolean isBlack, boolean isKing, int capturedKings) {
+    int from = Move.getStartIndex(move), to = Move.getEndIndex(move);
+    int id = isBlack ? (isKing ? BLACK_KING : BLACK_CHECKER) : (isKing ? WHITE_KING : WHITE_CHECKER);
+    int endId = Move.isPromotion(move) ? (isBlack ? BLACK_KING : WHITE_KING) : id;
+    long delta = Zobrist.getKey(id, from) ^ Zobrist.getKey(endId, to);
+    int captures = Move.getCaptures(move);
+    while (captures != 0) {
+      int i = Integer.numberOfTrailingZeros(captures);
+      captures &= captures - 1;
+      boolean wasKing = (capturedKings & (1 << i)) != 0;
+      delta ^= Zobrist.getKey(isBlack ? (wasKing ? WHITE_KING : WHITE_CHECKER) :
+                                        (wasKing ? BLACK_KING : BLACK_CHECKER), i);
+    }
+    return delta;
+  }
+
   public List<Point> find(int id) {
     // Find all black tiles with matching IDs
     List<Point> points = new ArrayList<>();
@@ -89,6 +313,12 @@ public class Board {
       id = EMPTY;
     }
 
+    // Update the hash and counts, removing the old checker and adding the new one
+    int old = get(index);
+    this.hash ^= Zobrist.getKey(old, index) ^ Zobrist.getKey(id, index);
+    counts[old]--;
+    counts[id & 7]++;
+
     // Set the state bits
     for (int i = 0; i < state.length; i++) {
       boolean set = ((1 << (state.length - i - 1)) & id) != 0;
@@ -113,20 +343,63 @@ public class Board {
   }
 
   public static Point toPoint(int index) {
-    int y = index / 4;
-    int x = 2 * (index % 4) + (y + 1) % 2;
-    return !isValidIndex(index) ? new Point(-1, -1) : new Point(x, y);
+    return !isValidIndex(index) ? new Point(-1, -1) : new Point(X[index], Y[index]);
   }
 
   public static int toIndex(int x, int y) {
     // Invalid (x, y) (i.e. not in board, or white tile)
-    if (!isValidPoint(new Point(x, y))) {
+    if (x < 0 || x > 7 || y < 0 || y > 7 || x % 2 == y % 2) {
       return -1;
     }
 
     return y * 4 + x / 2;
   }
 
+  /**
+   * Gets the column of a tile, or -1 if the index is not on the board.
+   */
+  public static int getX(int index) {
+    return isValidIndex(index) ? X[index] : -1;
+  }
+
+  /**
+   * Gets the row of a tile, or -1 if the index is not on the board.
+   */
+  public static int getY(int index) {
+    return isValidIndex(index) ? Y[index] : -1;
+  }
+
+  /**
+   * Gets the tile next to a tile in a direction, numbered as in
+   * {@code logic.BitboardGenerator}: down-left, down-right, up-left and
+   * up-right.
+   *
+   * @return the index of the tile, or -1 if it is off the board.
+   */
+  public static int getNeighbour(int index, int dir) {
+    return isValidIndex(index) && dir >= 0 && dir < 4 ? NEIGHBOURS[index * 4 + dir] : -1;
+  }
+
+  /**
+   * Gets the tile a skip from a tile in a direction lands on. The skipped
+   * tile is the neighbour in the same direction.
+   *
+   * @return the index of the tile, or -1 if it is off the board.
+   */
+  public static int getJump(int index, int dir) {
+    return isValidIndex(index) && dir >= 0 && dir < 4 ? JUMPS[index * 4 + dir] : -1;
+  }
+
+  /**
+   * Gets the tile between two tiles a skip apart.
+   *
+   * @return the index of the middle tile, or -1 if the tiles are not a skip
+   *         apart.
+   */
+  public static int getMiddleIndex(int index1, int index2) {
+    return isValidIndex(index1) && isValidIndex(index2) ? MIDDLES[index1 * 32 + index2] : -1;
+  }
+
   public static int toIndex(Point p) {
     return (p == null) ? -1 : toIndex(p.x, p.y);
   }
@@ -168,28 +441,12 @@ public class Board {
   }
 
   public static Point middle(int index1, int index2) {
-    return middle(toPoint(index1), toPoint(index2));
+    return toPoint(getMiddleIndex(index1, index2));
   }
 
   public static Point middle(int x1, int y1, int x2, int y2) {
-    // Check coordinates
-    int dx = x2 - x1, dy = y2 - y1;
-    if (x1 < 0 ||
-        y1 < 0 ||
-        x2 < 0 ||
-        y2 < 0 || // Not in the board
-        x1 > 7 ||
-        y1 > 7 ||
-        x2 > 7 ||
-        y2 > 7) {
-      return new Point(-1, -1);
-    } else if (x1 % 2 == y1 % 2 || x2 % 2 == y2 % 2) { // white tile
-      return new Point(-1, -1);
-    } else if (Math.abs(dx) != Math.abs(dy) || Math.abs(dx) != 2) {
-      return new Point(-1, -1);
-    }
-
-    return new Point(x1 + dx / 2, y1 + dy / 2);
+    // Off the board, on a white tile or not a skip apart
+    return middle(toIndex(x1, y1), toIndex(x2, y2));
   }
 
   public static boolean isValidIndex(int testIndex) {
@@ -201,18 +458,8 @@ public class Board {
       return false;
     }
 
-    // Check that it is on the board
-    final int x = testPoint.x, y = testPoint.y;
-    if (x < 0 || x > 7 || y < 0 || y > 7) {
-      return false;
-    }
-
-    // Check that it is on a black tile
-    if (x % 2 == y % 2) {
-      return false;
-    }
-
-    return true;
+    // Check that it is on a black tile of the board
+    return toIndex(testPoint.x, testPoint.y) >= 0;
   }
 
   @Override
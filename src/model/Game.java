@@ -7,12 +7,28 @@
 package model;
 
 import java.awt.Point;
-import java.util.List;
-import logic.MoveGenerator;
-import logic.MoveLogic;
+import java.util.Arrays;
+import logic.BitboardGenerator;
+import metrics.LatencyRecorder;
+import metrics.Metrics;
 
 public class Game {
 
+  /** The calls and times of playing a step, if metrics are enabled. */
+  private static final LatencyRecorder MOVE = Metrics.recorder("Game.move");
+
+  /** The calls and times of checking for game over, if metrics are enabled. */
+  private static final LatencyRecorder GAME_OVER = Metrics.recorder("Game.isGameOver");
+
+  /** The bit offset of the skip index (plus one) in an undo record. */
+  private static final int UNDO_SKIP_SHIFT = 32;
+
+  /** The bit set in an undo record if it was player 1's turn. */
+  private static final long UNDO_P1_TURN = 1L << 38;
+
+  /** The bit set in an undo record if the move crowned the checker. */
+  private static final long UNDO_PROMOTION = 1L << 39;
+
   /** The current state of the checker board. */
   private Board board;
 
@@ -22,6 +38,27 @@ public class Game {
   /** The index of the last skip, to allow for multiple skips in a turn. */
   private int skipIndex;
 
+  /** The known results used to adjudicate the game, or null for none. */
+  private Adjudicator adjudicator;
+
+  /** The legal moves of the current state, or null until first needed. */
+  private MoveList legalMoves;
+
+  /** The tiles each legal move's first step can end on, by start tile. */
+  private int[] legalSteps;
+
+  /** The flag indicating the legal moves are those of the current state. */
+  private boolean isLegalCached;
+
+  /**
+   * The snapshot of the current state, replaced after every move so other
+   * threads can read the state without copying or locking.
+   */
+  private volatile Position position;
+
+  /** The flag indicating the snapshot is of the current state. */
+  private boolean isPositionCached;
+
   public Game() {
     restart();
   }
@@ -33,14 +70,13 @@ public class Game {
   public Game(Board board, boolean isP1Turn, int skipIndex) {
     this.board = (board == null) ? new Board() : board;
     this.isP1Turn = isP1Turn;
-    this.skipIndex = skipIndex;
+    this.skipIndex = Board.isValidIndex(skipIndex) ? skipIndex : -1;
+    publish();
   }
 
   public Game copy() {
-    Game g = new Game();
-    g.board = board.copy();
-    g.isP1Turn = isP1Turn;
-    g.skipIndex = skipIndex;
+    Game g = new Game(board.copy(), isP1Turn, skipIndex);
+    g.adjudicator = adjudicator;
     return g;
   }
 
@@ -51,6 +87,8 @@ public class Game {
     this.board = new Board();
     this.isP1Turn = true;
     this.skipIndex = -1;
+    this.isLegalCached = false;
+    publish();
   }
 
   public boolean move(Point start, Point end) {
@@ -61,26 +99,33 @@ public class Game {
   }
 
   public boolean move(int startIndex, int endIndex) {
-    // Validate the move
-    if (!MoveLogic.isValidMove(this, startIndex, endIndex)) {
+    long start = Metrics.start();
+    boolean moved = play(startIndex, endIndex);
+    MOVE.stop(start);
+    return moved;
+  }
+
+  private boolean play(int startIndex, int endIndex) {
+    // Validate the move against the legal moves of this state
+    if (!isLegalStep(startIndex, endIndex)) {
       return false;
     }
+    this.isLegalCached = false;
 
     // Make the move
-    Point middle = Board.middle(startIndex, endIndex);
-    int midIndex = Board.toIndex(middle);
+    int midIndex = Board.getMiddleIndex(startIndex, endIndex);
     this.board.set(endIndex, board.get(startIndex));
     this.board.set(midIndex, Board.EMPTY);
     this.board.set(startIndex, Board.EMPTY);
 
     // Make the checker a king if necessary
-    Point end = Board.toPoint(endIndex);
+    int endY = Board.getY(endIndex);
     int id = board.get(endIndex);
     boolean switchTurn = false;
-    if (end.y == 0 && id == Board.WHITE_CHECKER) {
+    if (endY == 0 && id == Board.WHITE_CHECKER) {
       this.board.set(endIndex, Board.WHITE_KING);
       switchTurn = true;
-    } else if (end.y == 7 && id == Board.BLACK_CHECKER) {
+    } else if (endY == 7 && id == Board.BLACK_CHECKER) {
       this.board.set(endIndex, Board.BLACK_KING);
       switchTurn = true;
     }
@@ -90,46 +135,256 @@ public class Game {
     if (midValid) {
       this.skipIndex = endIndex;
     }
-    if (!midValid || MoveGenerator.getSkips(board.copy(), endIndex).isEmpty()) {
+    if (!midValid || !canSkip(endIndex)) {
       switchTurn = true;
     }
     if (switchTurn) {
       this.isP1Turn = !isP1Turn;
       this.skipIndex = -1;
     }
+    publish();
 
     return true;
   }
 
+  /**
+   * Fills a list with every legal complete move for the side to move (see
+   * {@link BitboardGenerator#getMoves}), without copying the board. The
+   * moves are copied from the cached legal moves if they are up to date.
+   *
+   * @return the number of moves in {@code moves}.
+   */
+  public int getMoves(MoveList moves) {
+    if (!isLegalCached) {
+      return BitboardGenerator.getMoves(board, isP1Turn, skipIndex, moves);
+    }
+    moves.clear();
+    for (int i = 0; i < legalMoves.size(); i++) {
+      moves.add(legalMoves.get(i));
+    }
+    return moves.size();
+  }
+
+  /**
+   * Checks if a single step, a simple move or one skip, can be played with
+   * {@link #move(int, int)}. It is answered from the legal moves of the
+   * current state, which are worked out once and kept until the state
+   * changes.
+   */
+  public boolean isLegalStep(int startIndex, int endIndex) {
+    return Board.isValidIndex(startIndex) && Board.isValidIndex(endIndex) &&
+           (getLegalSteps()[startIndex] & (1 << endIndex)) != 0;
+  }
+
+  /**
+   * Checks if the side to move has a legal step from a tile.
+   */
+  public boolean canMoveFrom(int index) {
+    return Board.isValidIndex(index) && getLegalSteps()[index] != 0;
+  }
+
+  /**
+   * Gets the number of legal complete moves of the current state.
+   */
+  public int getLegalMoveCount() {
+    getLegalSteps();
+    return legalMoves.size();
+  }
+
+  /**
+   * Gets the first-step end tiles of the legal moves by start tile, working
+   * out the legal moves if the state changed since they were last needed.
+   * Skips are mandatory but any skip may start a turn, so every skip open to
+   * a checker that has one is a legal first step.
+   */
+  private int[] getLegalSteps() {
+    if (isLegalCached) {
+      return legalSteps;
+    }
+    if (legalMoves == null) {
+      this.legalMoves = new MoveList();
+      this.legalSteps = new int[32];
+    }
+    Arrays.fill(legalSteps, 0);
+    int n = BitboardGenerator.getMoves(board, isP1Turn, skipIndex, legalMoves);
+    int jumpers = 0;
+    for (int i = 0; i < n; i++) {
+      long move = legalMoves.get(i);
+      if (Move.isSkip(move)) {
+        jumpers |= 1 << Move.getStartIndex(move);
+      } else {
+        legalSteps[Move.getStartIndex(move)] |= 1 << Move.getEndIndex(move);
+      }
+    }
+
+    // Find the single skips of each checker that can skip
+    int black = board.getBlackBits(), white = board.getWhiteBits(), kings = board.getKingBits();
+    int opp = isP1Turn ? white : black, empty = ~(black | white);
+    while (jumpers != 0) {
+      int start = jumpers & -jumpers;
+      jumpers &= jumpers - 1;
+      for (int dir = 0; dir < 4; dir++) {
+        int middle = BitboardGenerator.shift(start, dir) & opp;
+        int end = BitboardGenerator.shift(middle, dir) & empty;
+        if (end != 0 && BitboardGenerator.getJumpers(start, middle, kings, end, isP1Turn) != 0) {
+          legalSteps[Integer.numberOfTrailingZeros(start)] |= end;
+        }
+      }
+    }
+    this.isLegalCached = true;
+    return legalSteps;
+  }
+
+  /**
+   * Plays a complete packed move (a whole turn, including every skip of a
+   * multi-skip) in place, without validating it or copying the board. This
+   * is meant for walking the move tree, with moves from
+   * {@link BitboardGenerator#getMoves}.
+   *
+   * @return an undo record for {@link #unmakeMove}, holding the captured
+   *         kings, the promotion, the turn and the skip index.
+   */
+  public long makeMove(long move) {
+    int capturedKings = board.makeMove(move);
+    long undo = (capturedKings & 0xFFFFFFFFL) |
+                ((long) (skipIndex + 1) << UNDO_SKIP_SHIFT) |
+                (isP1Turn ? UNDO_P1_TURN : 0) |
+                (Move.isPromotion(move) ? UNDO_PROMOTION : 0);
+    this.isP1Turn = !isP1Turn;
+    this.skipIndex = -1;
+    this.isLegalCached = false;
+    this.isPositionCached = false;
+    return undo;
+  }
+
+  /**
+   * Takes back a move played with {@link #makeMove}, restoring the board,
+   * turn and skip index.
+   */
+  public void unmakeMove(long move, long undo) {
+    board.unmakeMove(move, (int) undo);
+    this.isP1Turn = (undo & UNDO_P1_TURN) != 0;
+    this.skipIndex = (int) ((undo >>> UNDO_SKIP_SHIFT) & 63) - 1;
+    this.isLegalCached = false;
+    this.isPositionCached = false;
+  }
+
   public Board getBoard() {
     return board.copy();
   }
 
+  /**
+   * Gets an immutable snapshot of the current state. It is replaced, not
+   * changed, by every move, so it may be kept or handed to another thread
+   * without copying.
+   *
+   * <p>{@link #makeMove} and {@link #unmakeMove} do not publish a snapshot,
+   * so walking the move tree does not allocate. They only mark the snapshot
+   * stale, and the next call builds a new one, so this must be called on
+   * the thread that changes the game; other threads use
+   * {@link #getPublishedPosition}.
+   */
+  public Position getPosition() {
+    if (!isPositionCached) {
+      publish();
+    }
+    return position;
+  }
+
+  /**
+   * Gets the last published snapshot without building a new one, for
+   * threads other than the one changing the game. It is the state after the
+   * last move, restart or state change, and is never torn, even while the
+   * owner walks the move tree.
+   */
+  public Position getPublishedPosition() {
+    return position;
+  }
+
+  /**
+   * Publishes a snapshot of the current state. The masks and hash are all
+   * kept up to date by the board, so this takes constant time.
+   */
+  private void publish() {
+    this.position = new Position(board.getBlackBits(), board.getWhiteBits(),
+      board.getKingBits(), isP1Turn, skipIndex, getHash());
+    this.isPositionCached = true;
+  }
+
+  /**
+   * Gets the board itself rather than a copy, for classes in this package
+   * that only read it.
+   */
+  Board peekBoard() {
+    return board;
+  }
+
+  /**
+   * Checks if the checker on a tile can skip an opponent checker, without
+   * copying the board or allocating.
+   */
+  private boolean canSkip(int index) {
+    int black = board.getBlackBits(), white = board.getWhiteBits();
+    int own = (isP1Turn ? black : white) & (1 << index);
+    return BitboardGenerator.getJumpers(own, isP1Turn ? white : black, board.getKingBits(),
+      ~(black | white), isP1Turn) != 0;
+  }
+
+  public Adjudicator getAdjudicator() {
+    return adjudicator;
+  }
+
+  /**
+   * Sets the known results used to adjudicate the game, such as an endgame
+   * database. Once the game reaches a position whose result is known, the
+   * game is over.
+   */
+  public void setAdjudicator(Adjudicator adjudicator) {
+    this.adjudicator = adjudicator;
+  }
+
+  /**
+   * Gets the known result of the current position from the side to move's
+   * point of view (see {@link Adjudicator#probe}), or
+   * {@link Adjudicator#UNKNOWN} if there is no adjudicator or it does not
+   * know the position.
+   */
+  public int getAdjudication() {
+    if (adjudicator == null || Board.isValidIndex(skipIndex)) {
+      return Adjudicator.UNKNOWN;
+    }
+    return adjudicator.probe(board.getBlackBits(), board.getWhiteBits(), board.getKingBits(), isP1Turn);
+  }
+
   public boolean isGameOver() {
+    long start = Metrics.start();
+    boolean over = checkGameOver();
+    GAME_OVER.stop(start);
+    return over;
+  }
+
+  private boolean checkGameOver() {
     // Ensure there is at least one of each checker
-    List<Point> black = board.find(Board.BLACK_CHECKER);
-    black.addAll(board.find(Board.BLACK_KING));
-    if (black.isEmpty()) {
+    if (board.getBlackCount() == 0 || board.getWhiteCount() == 0) {
       return true;
     }
-    List<Point> white = board.find(Board.WHITE_CHECKER);
-    white.addAll(board.find(Board.WHITE_KING));
-    if (white.isEmpty()) {
+
+    // The endgame database already knows the result
+    if (getAdjudication() != Adjudicator.UNKNOWN) {
       return true;
     }
 
     // Check that the current player can move
-    List<Point> test = isP1Turn ? black : white;
-    for (Point p : test) {
-      int i = Board.toIndex(p);
-      if (!MoveGenerator.getMoves(board, i).isEmpty() ||
-          !MoveGenerator.getSkips(board, i).isEmpty()) {
-        return false;
-      }
-    }
+    return getLegalMoveCount() == 0;
+  }
 
-    // No moves
-    return true;
+  /**
+   * Gets the 64-bit Zobrist hash of the game state: the checkers on the
+   * board, whose turn it is and the index of the last skip. The board part is
+   * kept up to date by each move, so this takes constant time.
+   */
+  public long getHash() {
+    return board.getHash() ^ Zobrist.getTurnKey(isP1Turn) ^ Zobrist.getSkipKey(skipIndex);
   }
 
   public boolean isP1Turn() {
@@ -138,24 +393,38 @@ public class Game {
 
   public void setP1Turn(boolean isP1Turn) {
     this.isP1Turn = isP1Turn;
+    this.isLegalCached = false;
+    publish();
   }
 
   public int getSkipIndex() {
     return skipIndex;
   }
 
+  /**
+   * Replaces the whole game state at once from the bit masks of the black
+   * checkers, white checkers and kings, the side to move and the skip index.
+   */
+  void setState(int black, int white, int kings, boolean isP1Turn, int skipIndex) {
+    board.setBits(black, white, kings);
+    this.isP1Turn = isP1Turn;
+    this.skipIndex = Board.isValidIndex(skipIndex) ? skipIndex : -1;
+    this.isLegalCached = false;
+    publish();
+  }
+
   public String getGameState() {
     // Add the game board
-    String state = "";
+    StringBuilder state = new StringBuilder(35);
     for (int i = 0; i < 32; i++) {
-      state += "" + board.get(i);
+      state.append((char) ('0' + board.get(i)));
     }
 
     // Add the other info
-    state += (isP1Turn ? "1" : "0");
-    state += skipIndex;
+    state.append(isP1Turn ? '1' : '0');
+    state.append(skipIndex);
 
-    return state;
+    return state.toString();
   }
 
   public void setGameState(String state) {
@@ -169,10 +438,9 @@ public class Game {
     // Update the board
     int n = state.length();
     for (int i = 0; i < 32 && i < n; i++) {
-      try {
-        int id = Integer.parseInt("" + state.charAt(i));
+      int id = state.charAt(i) - '0';
+      if (id >= 0 && id <= 9) {
         this.board.set(i, id);
-      } catch (NumberFormatException e) {
       }
     }
 
@@ -182,10 +450,13 @@ public class Game {
     }
     if (n > 33) {
       try {
-        this.skipIndex = Integer.parseInt(state.substring(33));
+        int index = Integer.parseInt(state, 33, n, 10);
+        this.skipIndex = Board.isValidIndex(index) ? index : -1;
       } catch (NumberFormatException e) {
         this.skipIndex = -1;
       }
     }
+    this.isLegalCached = false;
+    publish();
   }
 }
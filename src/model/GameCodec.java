@@ -0,0 +1,128 @@
+/* Name: GameCodec
+ * Author: Saul Lara
+ * Description: This class converts game states to and from a compact binary
+ * form of 13 bytes, for storing and sending many states.
+ */
+
+package model;
+
+import java.nio.ByteBuffer;
+
+public class GameCodec {
+
+  /** The number of bytes in an encoded game state. */
+  public static final int SIZE = 13;
+
+  /** The bit of the last byte set when it is player 1's turn. */
+  private static final int P1_TURN = 0x80;
+
+  /** The bits of the last byte holding the skip index plus one. */
+  private static final int SKIP_MASK = 0x3F;
+
+  /**
+   * Writes a game state at the buffer's position and advances it by
+   * {@link #SIZE} bytes: the black checkers, white checkers and kings as
+   * three ints (bit {@code i} is the tile with index {@code i}), then one
+   * byte holding the side to move in its top bit and the skip index plus one
+   * in its low 6 bits. The ints use the buffer's byte order, which is
+   * big-endian unless it was changed.
+   */
+  public static void encode(Game game, ByteBuffer buffer) {
+    int position = buffer.position();
+    encode(game, buffer, position);
+    buffer.position(position + SIZE);
+  }
+
+  /**
+   * Writes a game state at an index of a buffer, without changing its
+   * position.
+   *
+   * @throws IllegalArgumentException if the skip index is not -1 or a tile.
+   */
+  public static void encode(Game game, ByteBuffer buffer, int index) {
+    int skipIndex = game.getSkipIndex();
+    if (skipIndex != -1 && !Board.isValidIndex(skipIndex)) {
+      throw new IllegalArgumentException("Skip index out of range: " + skipIndex);
+    }
+    Board board = game.peekBoard();
+    buffer.putInt(index, board.getBlackBits());
+    buffer.putInt(index + 4, board.getWhiteBits());
+    buffer.putInt(index + 8, board.getKingBits());
+    buffer.put(index + 12, (byte) ((game.isP1Turn() ? P1_TURN : 0) |
+                                   (skipIndex + 1)));
+  }
+
+  /**
+   * Encodes a game state into a new array.
+   */
+  public static byte[] encode(Game game) {
+    byte[] bytes = new byte[SIZE];
+    encode(game, ByteBuffer.wrap(bytes), 0);
+    return bytes;
+  }
+
+  /**
+   * Reads a game state at the buffer's position into an existing game and
+   * advances the buffer by {@link #SIZE} bytes.
+   *
+   * @throws IllegalArgumentException if the bytes are not a game state.
+   */
+  public static void decode(ByteBuffer buffer, Game game) {
+    int position = buffer.position();
+    decode(buffer, position, game);
+    buffer.position(position + SIZE);
+  }
+
+  /**
+   * Reads a game state at an index of a buffer into an existing game,
+   * without changing the buffer's position.
+   *
+   * @throws IllegalArgumentException if the bytes are not a game state.
+   */
+  public static void decode(ByteBuffer buffer, int index, Game game) {
+    int black = buffer.getInt(index);
+    int white = buffer.getInt(index + 4);
+    int kings = buffer.getInt(index + 8);
+    int info = buffer.get(index + 12) & 0xFF;
+    int skipIndex = (info & SKIP_MASK) - 1;
+    if ((black & white) != 0 || (kings & ~(black | white)) != 0 ||
+        skipIndex >= 32 || (info & ~(P1_TURN | SKIP_MASK)) != 0) {
+      throw new IllegalArgumentException("Not an encoded game state");
+    }
+    game.setState(black, white, kings, (info & P1_TURN) != 0, skipIndex);
+  }
+
+  /**
+   * Decodes a game state into a new game.
+   */
+  public static Game decode(ByteBuffer buffer) {
+    Game game = new Game();
+    decode(buffer, game);
+    return game;
+  }
+
+  /**
+   * Decodes a game state from an array.
+   */
+  public static Game decode(byte[] bytes) {
+    Game game = new Game();
+    decode(ByteBuffer.wrap(bytes), 0, game);
+    return game;
+  }
+
+  /**
+   * Converts an encoded game state to the string form of
+   * {@link Game#getGameState}.
+   */
+  public static String toGameState(byte[] bytes) {
+    return decode(bytes).getGameState();
+  }
+
+  /**
+   * Converts a game state string (see {@link Game#setGameState}) to its
+   * encoded form.
+   */
+  public static byte[] fromGameState(String state) {
+    return encode(new Game(state));
+  }
+}
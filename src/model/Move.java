@@ -9,50 +9,118 @@ import java.awt.Point;
 
 /**
  * The {@code Move} class represents a move and contains a weight associated
- * with the move.
+ * with the move. It is a thin view over the packed {@code long} form of a move
+ * used by the move generators and the search, which stores the start index,
+ * end index, a promotion flag and the mask of captured tiles.
  */
 public class Move {
 
   /** The weight corresponding to an invalid move. */
   public static final double WEIGHT_INVALID = Double.NEGATIVE_INFINITY;
 
-  /** The start index of the move. */
-  private byte startIndex;
+  /** The bit offset of the start index in a packed move. */
+  private static final int START_SHIFT = 0;
 
-  /** The end index of the move. */
-  private byte endIndex;
+  /** The bit offset of the end index in a packed move. */
+  private static final int END_SHIFT = 6;
+
+  /** The mask of an index in a packed move (6 bits so -1 can be kept). */
+  private static final long INDEX_MASK = 63;
+
+  /** The bit flagging a packed move that crowns the checker. */
+  private static final long PROMOTION_FLAG = 1L << 12;
+
+  /** The bit offset of the captured-tile mask in a packed move. */
+  private static final int CAPTURES_SHIFT = 32;
+
+  /** The packed form of the move. */
+  private long move;
 
   /** The weight associated with the move. */
   private double weight;
 
   public Move(int startIndex, int endIndex) {
-    setStartIndex(startIndex);
-    setEndIndex(endIndex);
+    this.move = encode(startIndex, endIndex, 0, false);
   }
 
   public Move(Point start, Point end) {
-    setStartIndex(Board.toIndex(start));
-    setEndIndex(Board.toIndex(end));
+    this(Board.toIndex(start), Board.toIndex(end));
+  }
+
+  public Move(long move) {
+    this.move = move;
+  }
+
+  /**
+   * Packs a move into a {@code long} from its start index, end index, the
+   * mask of tiles it captures and whether it crowns the checker.
+   */
+  public static long encode(int startIndex, int endIndex, int captures, boolean promotes) {
+    return ((startIndex & INDEX_MASK) << START_SHIFT) |
+           ((endIndex & INDEX_MASK) << END_SHIFT) |
+           (promotes ? PROMOTION_FLAG : 0) |
+           ((long) captures << CAPTURES_SHIFT);
+  }
+
+  /**
+   * Gets the start index of a packed move.
+   */
+  public static int getStartIndex(long move) {
+    return toIndex((move >>> START_SHIFT) & INDEX_MASK);
+  }
+
+  /**
+   * Gets the end index of a packed move.
+   */
+  public static int getEndIndex(long move) {
+    return toIndex((move >>> END_SHIFT) & INDEX_MASK);
+  }
+
+  /**
+   * Gets the mask of tiles captured by a packed move.
+   */
+  public static int getCaptures(long move) {
+    return (int) (move >>> CAPTURES_SHIFT);
+  }
+
+  /**
+   * Checks if a packed move crowns the checker.
+   */
+  public static boolean isPromotion(long move) {
+    return (move & PROMOTION_FLAG) != 0;
+  }
+
+  /**
+   * Checks if a packed move captures at least one checker.
+   */
+  public static boolean isSkip(long move) {
+    return getCaptures(move) != 0;
+  }
+
+  public long getMove() {
+    return move;
   }
 
   public int getStartIndex() {
-    return startIndex;
+    return getStartIndex(move);
   }
 
   public void setStartIndex(int startIndex) {
-    this.startIndex = (byte) startIndex;
+    this.move = (move & ~(INDEX_MASK << START_SHIFT)) |
+                ((startIndex & INDEX_MASK) << START_SHIFT);
   }
 
   public int getEndIndex() {
-    return endIndex;
+    return getEndIndex(move);
   }
 
   public void setEndIndex(int endIndex) {
-    this.endIndex = (byte) endIndex;
+    this.move = (move & ~(INDEX_MASK << END_SHIFT)) |
+                ((endIndex & INDEX_MASK) << END_SHIFT);
   }
 
   public Point getStart() {
-    return Board.toPoint(startIndex);
+    return Board.toPoint(getStartIndex());
   }
 
   public void setStart(Point start) {
@@ -60,13 +128,25 @@ public class Move {
   }
 
   public Point getEnd() {
-    return Board.toPoint(endIndex);
+    return Board.toPoint(getEndIndex());
   }
 
   public void setEnd(Point end) {
     setEndIndex(Board.toIndex(end));
   }
 
+  public int getCaptures() {
+    return getCaptures(move);
+  }
+
+  public boolean isPromotion() {
+    return isPromotion(move);
+  }
+
+  public boolean isSkip() {
+    return isSkip(move);
+  }
+
   public double getWeight() {
     return weight;
   }
@@ -79,14 +159,23 @@ public class Move {
     this.weight += delta;
   }
 
+  /**
+   * Unpacks an index, mapping the all-ones value back to -1.
+   */
+  private static int toIndex(long bits) {
+    return bits == INDEX_MASK ? -1 : (int) bits;
+  }
+
   @Override
   public String toString() {
     return (getClass().getSimpleName() +
         "[startIndex=" +
-        startIndex +
+        getStartIndex() +
         ", " +
         "endIndex=" +
-        endIndex +
+        getEndIndex() +
+        ", captures=" +
+        Integer.toHexString(getCaptures()) +
         ", weight=" +
         weight +
         "]");
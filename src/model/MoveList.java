@@ -0,0 +1,99 @@
+/* Name: MoveList
+ * Author: Saul Lara
+ * Description: This class represents a reusable buffer of packed moves that
+ * move generators fill, so that searching does not allocate per position.
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MoveList {
+
+  /** The default capacity, which is enough for any position in practice. */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /** The packed moves in the list (see {@link Move#encode}). */
+  private long[] moves;
+
+  /** The number of moves in the list. */
+  private int size;
+
+  public MoveList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public MoveList(int capacity) {
+    this.moves = new long[Math.max(1, capacity)];
+  }
+
+  /**
+   * Adds a packed move, growing the buffer in the rare case it is full.
+   */
+  public void add(long move) {
+    if (size == moves.length) {
+      this.moves = Arrays.copyOf(moves, size * 2);
+    }
+    moves[size++] = move;
+  }
+
+  public long get(int i) {
+    return moves[i];
+  }
+
+  public void set(int i, long move) {
+    moves[i] = move;
+  }
+
+  /**
+   * Swaps two moves, which is used to order moves in place.
+   */
+  public void swap(int i, int j) {
+    long tmp = moves[i];
+    moves[i] = moves[j];
+    moves[j] = tmp;
+  }
+
+  public boolean contains(long move) {
+    for (int i = 0; i < size; i++) {
+      if (moves[i] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Empties the list, keeping the buffer for the next use.
+   */
+  public void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * Creates {@link Move} views of the moves, for callers like the user
+   * interface that are not on a hot path.
+   */
+  public List<Move> toMoves() {
+    List<Move> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(new Move(moves[i]));
+    }
+    return list;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + toMoves();
+  }
+}
@@ -0,0 +1,158 @@
+/* Name: Position
+ * Author: Saul Lara
+ * Description: This class is an immutable snapshot of a game state: the bit
+ * masks of the black checkers, white checkers and kings, whose turn it is
+ * and the index of the last skip. It can be shared between threads without
+ * copying.
+ */
+
+package model;
+
+public final class Position {
+
+  /** The position at the start of a game. */
+  public static final Position INITIAL = new Game().getPosition();
+
+  /** The tiles holding a black checker or king. */
+  private final int black;
+
+  /** The tiles holding a white checker or king. */
+  private final int white;
+
+  /** The tiles holding a king of either colour. */
+  private final int kings;
+
+  /** The flag indicating if it is player 1's turn. */
+  private final boolean isP1Turn;
+
+  /** The index of the checker that must skip again, or -1. */
+  private final int skipIndex;
+
+  /** The Zobrist hash of the state, as {@link Game#getHash}. */
+  private final long hash;
+
+  /**
+   * Creates a position from the bit masks of the checkers, the side to move
+   * and the index of the checker that must skip again (or -1).
+   */
+  public Position(int black, int white, int kings, boolean isP1Turn, int skipIndex) {
+    // Tiles in both masks hold black checkers, as in Board.setBits
+    this.black = black;
+    this.white = white & ~black;
+    this.kings = kings & (black | white);
+    this.isP1Turn = isP1Turn;
+    this.skipIndex = Board.isValidIndex(skipIndex) ? skipIndex : -1;
+    this.hash = Zobrist.hash(this.black, this.white, this.kings, isP1Turn, this.skipIndex);
+  }
+
+  /**
+   * Creates a position from the masks of a board and a hash already worked
+   * out, without checking them.
+   */
+  Position(int black, int white, int kings, boolean isP1Turn, int skipIndex, long hash) {
+    this.black = black;
+    this.white = white;
+    this.kings = kings;
+    this.isP1Turn = isP1Turn;
+    this.skipIndex = skipIndex;
+    this.hash = hash;
+  }
+
+  public int getBlackBits() {
+    return black;
+  }
+
+  public int getWhiteBits() {
+    return white;
+  }
+
+  public int getKingBits() {
+    return kings;
+  }
+
+  public int getOccupiedBits() {
+    return black | white;
+  }
+
+  public boolean isP1Turn() {
+    return isP1Turn;
+  }
+
+  public int getSkipIndex() {
+    return skipIndex;
+  }
+
+  /**
+   * Gets the 64-bit Zobrist hash of the position, the same as the hash of a
+   * game in this state.
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Gets the ID of the checker on a tile, as {@link Board#get}.
+   */
+  public int get(int index) {
+    if (!Board.isValidIndex(index)) {
+      return Board.INVALID;
+    }
+    int bit = 1 << index;
+    if ((black & bit) != 0) {
+      return (kings & bit) != 0 ? Board.BLACK_KING : Board.BLACK_CHECKER;
+    }
+    if ((white & bit) != 0) {
+      return (kings & bit) != 0 ? Board.WHITE_KING : Board.WHITE_CHECKER;
+    }
+    return Board.EMPTY;
+  }
+
+  public int getBlackCount() {
+    return Integer.bitCount(black);
+  }
+
+  public int getWhiteCount() {
+    return Integer.bitCount(white);
+  }
+
+  /**
+   * Creates a new, mutable board with the checkers of this position.
+   */
+  public Board toBoard() {
+    Board board = new Board();
+    board.setBits(black, white, kings);
+    return board;
+  }
+
+  /**
+   * Creates a new game in this position.
+   */
+  public Game toGame() {
+    return new Game(toBoard(), isP1Turn, skipIndex);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Position)) {
+      return false;
+    }
+    Position other = (Position) obj;
+    return hash == other.hash && black == other.black && white == other.white &&
+           kings == other.kings && isP1Turn == other.isP1Turn && skipIndex == other.skipIndex;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[black=" + Integer.toHexString(black) +
+        ", white=" + Integer.toHexString(white) + ", kings=" + Integer.toHexString(kings) +
+        ", isP1Turn=" + isP1Turn + ", skipIndex=" + skipIndex + "]";
+  }
+}
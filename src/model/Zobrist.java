@@ -0,0 +1,96 @@
+/* Name: Zobrist
+ * Author: Saul Lara
+ * Description: This class holds the random keys used to give every game
+ * state a 64-bit hash that can be updated one tile at a time.
+ */
+
+package model;
+
+import java.util.SplittableRandom;
+
+public class Zobrist {
+
+  /** The seed of the keys, fixed so hashes are stable across runs. */
+  private static final long SEED = 0x2545F4914F6CDD1DL;
+
+  /** The key of each checker ID (0 to 7) on each tile. */
+  private static final long[][] PIECES = new long[8][32];
+
+  /** The key toggled in when it is white's turn. */
+  public static final long WHITE_TURN;
+
+  /** The key of each index that a checker must continue skipping from. */
+  private static final long[] SKIPS = new long[32];
+
+  static {
+    SplittableRandom random = new SplittableRandom(SEED);
+    for (int id : new int[] {Board.BLACK_CHECKER, Board.WHITE_CHECKER,
+        Board.BLACK_KING, Board.WHITE_KING}) {
+      for (int i = 0; i < 32; i++) {
+        PIECES[id][i] = random.nextLong();
+      }
+    }
+    for (int i = 0; i < 32; i++) {
+      SKIPS[i] = random.nextLong();
+    }
+    WHITE_TURN = random.nextLong();
+  }
+
+  private Zobrist() {
+  }
+
+  /**
+   * Gets the key of a checker on a tile, or 0 for an empty tile.
+   */
+  public static long getKey(int id, int index) {
+    return (id & ~7) != 0 || !Board.isValidIndex(index) ? 0 : PIECES[id][index];
+  }
+
+  /**
+   * Gets the key of the checker that must continue skipping, or 0 if none.
+   */
+  public static long getSkipKey(int skipIndex) {
+    return Board.isValidIndex(skipIndex) ? SKIPS[skipIndex] : 0;
+  }
+
+  /**
+   * Gets the key of the side to move.
+   */
+  public static long getTurnKey(boolean isP1Turn) {
+    return isP1Turn ? 0 : WHITE_TURN;
+  }
+
+  /**
+   * Computes the full hash of the checkers given by bit-planes. This visits
+   * every checker, so it is meant for initialising a hash that is then kept
+   * up to date incrementally.
+   */
+  public static long hash(int black, int white, int kings) {
+    long hash = 0;
+    hash ^= hash(black & ~kings, Board.BLACK_CHECKER);
+    hash ^= hash(black & kings, Board.BLACK_KING);
+    hash ^= hash(white & ~kings, Board.WHITE_CHECKER);
+    hash ^= hash(white & kings, Board.WHITE_KING);
+    return hash;
+  }
+
+  /**
+   * Computes the full hash of a game state given by bit-planes, the side to
+   * move and the skip index.
+   */
+  public static long hash(int black, int white, int kings, boolean isP1Turn, int skipIndex) {
+    return hash(black, white, kings) ^ getTurnKey(isP1Turn) ^ getSkipKey(skipIndex);
+  }
+
+  /**
+   * Combines the keys of one checker ID on every tile in a mask.
+   */
+  private static long hash(int bits, int id) {
+    long hash = 0;
+    while (bits != 0) {
+      hash ^= PIECES[id][Integer.numberOfTrailingZeros(bits)];
+      bits &= bits - 1;
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,265 @@
+package pdn;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import model.Board;
+import model.Game;
+import model.MoveList;
+import model.Position;
+import store.GameLog;
+
+/**
+ * A game in Portable Draughts Notation: its tag pairs, its start position and
+ * the packed moves (see {@code model.Move}) played from it, one per turn.
+ *
+ * <p>PDN numbers the playable squares 1 to 32 from black's side of the board,
+ * which is board index + 1 here. Black moves first and a result of "1-0" is a
+ * win for black. Positions are written as FEN tags, such as
+ * {@code B:W18,24,K10:B12,16,K22} for black to move with white checkers on 18
+ * and 24, a white king on 10, black checkers on 12 and 16 and a black king on
+ * 22.
+ */
+public class PdnGame {
+
+  /** The FEN of the initial position. */
+  public static final String INITIAL_FEN = "B:W21,22,23,24,25,26,27,28,29,30,31,32:" +
+      "B1,2,3,4,5,6,7,8,9,10,11,12";
+
+  /** The hash of the initial position. */
+  private static final long INITIAL_HASH = new Game().getHash();
+
+  /** The tag pairs, in the order they were read or set. */
+  private final Map<String, String> tags = new LinkedHashMap<>();
+
+  /** The start position. */
+  private final Game start;
+
+  /** The moves played from the start position. */
+  private final MoveList moves = new MoveList();
+
+  /** The result (see {@link GameLog#BLACK}). */
+  private int result = GameLog.UNKNOWN;
+
+  public PdnGame() {
+    this(new Game());
+  }
+
+  public PdnGame(Game start) {
+    this.start = (start == null) ? new Game() : start.copy();
+  }
+
+  public String getTag(String name) {
+    return tags.get(name);
+  }
+
+  public void setTag(String name, String value) {
+    tags.put(name, value);
+  }
+
+  /**
+   * Gets every tag pair, in the order they were read or set.
+   */
+  public Map<String, String> getTags() {
+    return Collections.unmodifiableMap(tags);
+  }
+
+  /**
+   * Gets a copy of the start position.
+   */
+  public Game getStart() {
+    return start.copy();
+  }
+
+  /**
+   * Checks if the game starts from the initial position.
+   */
+  public boolean isInitialStart() {
+    return start.getHash() == INITIAL_HASH;
+  }
+
+  /**
+   * Gets the moves of the game. The list belongs to the game.
+   */
+  public MoveList getMoves() {
+    return moves;
+  }
+
+  /**
+   * Adds a packed move, which must be legal after the moves before it.
+   */
+  public void addMove(long move) {
+    moves.add(move);
+  }
+
+  public int getPlies() {
+    return moves.size();
+  }
+
+  /**
+   * Gets the result (see {@link GameLog#BLACK}).
+   */
+  public int getResult() {
+    return result;
+  }
+
+  public void setResult(int result) {
+    this.result = result;
+  }
+
+  /**
+   * Sets a game to the start position and plays the first moves on it.
+   */
+  public void replay(Game game, int plies) {
+    game.setGameState(start.getGameState());
+    int n = Math.min(plies, moves.size());
+    for (int i = 0; i < n; i++) {
+      game.makeMove(moves.get(i));
+    }
+  }
+
+  /**
+   * Plays every move from the start position on a new game.
+   */
+  public Game toGame() {
+    Game game = start.copy();
+    for (int i = 0; i < moves.size(); i++) {
+      game.makeMove(moves.get(i));
+    }
+    return game;
+  }
+
+  /**
+   * Gets the PDN text of a result.
+   */
+  public static String getResultText(int result) {
+    switch (result) {
+      case GameLog.BLACK:
+        return "1-0";
+      case GameLog.WHITE:
+        return "0-1";
+      case GameLog.DRAW:
+        return "1/2-1/2";
+      default:
+        return "*";
+    }
+  }
+
+  /**
+   * Parses the PDN text of a result.
+   *
+   * @return the result, or {@link GameLog#UNKNOWN} if the text is not one.
+   */
+  public static int parseResult(String text) {
+    switch (text) {
+      case "1-0":
+      case "2-0":
+        return GameLog.BLACK;
+      case "0-1":
+      case "0-2":
+        return GameLog.WHITE;
+      case "1/2-1/2":
+      case "1-1":
+        return GameLog.DRAW;
+      default:
+        return GameLog.UNKNOWN;
+    }
+  }
+
+  /**
+   * Checks if a move text token is a result.
+   */
+  static boolean isResult(String text) {
+    return text.equals("*") || parseResult(text) != GameLog.UNKNOWN;
+  }
+
+  /**
+   * Writes a position as FEN.
+   */
+  public static String toFen(Game game) {
+    Position position = game.getPosition();
+    StringBuilder fen = new StringBuilder(position.isP1Turn() ? "B" : "W");
+    appendSquares(fen.append(":W"), position.getWhiteBits(), position.getKingBits());
+    appendSquares(fen.append(":B"), position.getBlackBits(), position.getKingBits());
+    return fen.toString();
+  }
+
+  /**
+   * Reads a position from FEN, such as {@code W:W18,K10:B1-4,K22}. Square
+   * ranges and a trailing period are allowed.
+   *
+   * @throws IllegalArgumentException if the text is not a position.
+   */
+  public static Game fromFen(String fen) {
+    String[] fields = fen.trim().replaceAll("\\.$", "").split(":");
+    String side = fields[0].trim().toUpperCase();
+    if (!side.equals("B") && !side.equals("W")) {
+      throw new IllegalArgumentException("Bad FEN: " + fen);
+    }
+    int black = 0, white = 0, kings = 0;
+    for (int f = 1; f < fields.length; f++) {
+      String field = fields[f].trim();
+      if (field.isEmpty()) {
+        continue;
+      }
+      boolean isBlack = Character.toUpperCase(field.charAt(0)) == 'B';
+      if (!isBlack && Character.toUpperCase(field.charAt(0)) != 'W') {
+        throw new IllegalArgumentException("Bad FEN: " + fen);
+      }
+      for (String square : field.substring(1).split(",")) {
+        square = square.trim();
+        if (square.isEmpty()) {
+          continue;
+        }
+        boolean isKing = Character.toUpperCase(square.charAt(0)) == 'K';
+        String[] range = (isKing ? square.substring(1) : square).split("-");
+        int first = parseSquare(range[0], fen);
+        int last = range.length > 1 ? parseSquare(range[1], fen) : first;
+        for (int i = first; i <= last; i++) {
+          if (isBlack) {
+            black |= 1 << i;
+          } else {
+            white |= 1 << i;
+          }
+          if (isKing) {
+            kings |= 1 << i;
+          }
+        }
+      }
+    }
+    if ((black & white) != 0) {
+      throw new IllegalArgumentException("Bad FEN: " + fen);
+    }
+    Board board = new Board();
+    board.setBits(black, white, kings);
+    return new Game(board, side.equals("B"), -1);
+  }
+
+  /**
+   * Parses a PDN square number into a board index.
+   */
+  private static int parseSquare(String square, String fen) {
+    try {
+      int index = Integer.parseInt(square.trim()) - 1;
+      if (Board.isValidIndex(index)) {
+        return index;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException("Bad FEN: " + fen);
+  }
+
+  /**
+   * Appends the squares of a set of checkers, with kings prefixed by K.
+   */
+  private static void appendSquares(StringBuilder fen, int bits, int kings) {
+    boolean first = true;
+    while (bits != 0) {
+      int i = Integer.numberOfTrailingZeros(bits);
+      bits &= bits - 1;
+      fen.append(first ? "" : ",").append((kings & (1 << i)) != 0 ? "K" : "").append(i + 1);
+      first = false;
+    }
+  }
+}
@@ -0,0 +1,554 @@
+package pdn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import logic.BitboardGenerator;
+import model.Board;
+import model.Game;
+import model.Move;
+import model.MoveList;
+import store.GameLog;
+
+/**
+ * Reads games in Portable Draughts Notation (see {@link PdnGame}) one at a
+ * time from a stream, so archives of any size are read in constant memory.
+ * Each move is checked against the legal moves of the position, which also
+ * fills in the captured checkers that PDN leaves implicit.
+ *
+ * <p>Comments ({@code {...}} and {@code ;} to the end of the line),
+ * variations, move numbers, annotation glyphs and move strength marks are
+ * skipped. A game ends at its result or where the next game's tags start. A
+ * game with an illegal move or bad FEN either fails the read or, if
+ * {@link #setSkipInvalid skipping} is on, is skipped and counted.
+ *
+ * <p>{@link #readParallel} splits a file at game boundaries and reads the
+ * parts on several threads.
+ */
+public class PdnReader {
+
+  /** The size of the read buffer, in characters. */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** The source of the text. */
+  private final Reader in;
+
+  /** The read buffer. */
+  private final char[] buffer = new char[BUFFER_SIZE];
+
+  /** The position of the next character in the buffer. */
+  private int position;
+
+  /** The number of characters in the buffer. */
+  private int limit;
+
+  /** The line of the next character, counting from 1. */
+  private long line = 1;
+
+  /** The flag indicating invalid games are skipped instead of failing. */
+  private boolean skipInvalid;
+
+  /** The number of invalid games skipped. */
+  private long skipped;
+
+  /** The token being read. */
+  private final StringBuilder token = new StringBuilder();
+
+  /** The legal moves of the current position. */
+  private final MoveList legal = new MoveList();
+
+  /** The tiles visited by a capture. */
+  private final int[] path = new int[BitboardGenerator.MAX_PATH];
+
+  public PdnReader(Reader in) {
+    this.in = in;
+  }
+
+  /**
+   * Reads a PDN file and prints how many games and moves it has and how fast
+   * it was read, optionally appending every game to a game log.
+   *
+   * <p>Usage: {@code java pdn.PdnReader [file] [threads] [log]}
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Path path = Paths.get(args.length > 0 ? args[0] : "games.pdn");
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    GameLog log = args.length > 2 ? GameLog.open(Paths.get(args[2])) : null;
+    AtomicLong moves = new AtomicLong();
+    AtomicLong ids = new AtomicLong();
+    long start = System.nanoTime();
+    long[] counts;
+    try {
+      counts = readParallel(path, threads, true, pdn -> {
+        moves.addAndGet(pdn.getPlies());
+        if (log != null) {
+          try {
+            log.append(ids.getAndIncrement(), pdn.getStart(), pdn.getMoves(), pdn.getResult());
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      });
+    } finally {
+      if (log != null) {
+        log.close();
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d games, %d moves, %d skipped in %.2f s: %.0f games/sec%n",
+      counts[0], moves.get(), counts[1], seconds, counts[0] / seconds);
+  }
+
+  /**
+   * Sets whether games with illegal moves or bad FEN are skipped instead of
+   * failing the read.
+   */
+  public void setSkipInvalid(boolean skipInvalid) {
+    this.skipInvalid = skipInvalid;
+  }
+
+  /**
+   * Gets the number of invalid games skipped so far.
+   */
+  public long getSkipped() {
+    return skipped;
+  }
+
+  /**
+   * Reads every remaining game, passing each to a callback.
+   *
+   * @return the number of games read.
+   */
+  public long forEach(Consumer<? super PdnGame> consumer) throws IOException {
+    long count = 0;
+    PdnGame pdn;
+    while ((pdn = next()) != null) {
+      consumer.accept(pdn);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Reads the next game.
+   *
+   * @return the game, or null at the end of the text.
+   * @throws IOException if the text cannot be read, or a game is invalid and
+   *         invalid games are not skipped.
+   */
+  public PdnGame next() throws IOException {
+    while (true) {
+      PdnGame pdn = new PdnGame();
+      Game game = null;
+      String error = null;
+      long errorLine = 0;
+      boolean started = false, inMoves = false;
+      int c;
+      while ((c = peek()) >= 0) {
+        if (Character.isWhitespace(c)) {
+          read();
+          continue;
+        }
+        if (c == '[') {
+          if (inMoves) {
+            break;
+          }
+          readTag(pdn);
+          started = true;
+          continue;
+        }
+        read();
+        if (c == '{') {
+          skipTo('}');
+          continue;
+        }
+        if (c == ';') {
+          skipTo('\n');
+          continue;
+        }
+        if (c == '(') {
+          skipVariation();
+          continue;
+        }
+        if (c == ')' || c == ']' || c == '}') {
+          continue;
+        }
+
+        // A word: a result, move number, glyph or move
+        readWord(c);
+        started = true;
+        String word = token.toString();
+        if (PdnGame.isResult(word)) {
+          pdn.setResult(PdnGame.parseResult(word));
+          break;
+        }
+        if (word.charAt(0) == '$' || error != null) {
+          continue;
+        }
+        int dot = word.lastIndexOf('.');
+        String move = stripStrength(dot >= 0 ? word.substring(dot + 1) : word);
+        if (move.isEmpty() || !hasSeparator(move)) {
+          continue;
+        }
+        inMoves = true;
+        if (game == null) {
+          try {
+            String fen = pdn.getTag("FEN");
+            game = fen == null ? new Game() : PdnGame.fromFen(fen);
+            pdn = withStart(pdn, game);
+          } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+            errorLine = line;
+            continue;
+          }
+        }
+        long parsed = parseMove(game, move);
+        if (parsed == 0) {
+          error = "Illegal move " + move;
+          errorLine = line;
+          continue;
+        }
+        pdn.addMove(parsed);
+        game.makeMove(parsed);
+      }
+
+      if (!started) {
+        return null;
+      }
+      if (game == null && pdn.getTag("FEN") != null) {
+        try {
+          pdn = withStart(pdn, PdnGame.fromFen(pdn.getTag("FEN")));
+        } catch (IllegalArgumentException e) {
+          error = e.getMessage();
+          errorLine = line;
+        }
+      }
+      if (error == null) {
+        return pdn;
+      }
+      if (!skipInvalid) {
+        throw new IOException("Line " + errorLine + ": " + error);
+      }
+      skipped++;
+    }
+  }
+
+  /**
+   * Reads the games of a file on several threads, passing each game to a
+   * callback, which must be thread-safe. The file is split into parts that
+   * start where a game's tags start, and each part is read by its own
+   * reader.
+   *
+   * @return the number of games read and the number of invalid games skipped.
+   */
+  public static long[] readParallel(Path path, int threads, boolean skipInvalid,
+      Consumer<? super PdnGame> consumer) throws IOException, InterruptedException {
+    threads = Math.max(1, threads);
+    long[] bounds;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      bounds = new long[threads + 1];
+      bounds[threads] = size;
+      for (int i = 1; i < threads; i++) {
+        bounds[i] = Math.max(bounds[i - 1], findGameStart(channel, size * i / threads));
+      }
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<long[]>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        long start = bounds[i], end = bounds[i + 1];
+        futures.add(pool.submit(() -> {
+          try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+               Reader reader = new InputStreamReader(new RangeInputStream(channel, start, end),
+                 StandardCharsets.ISO_8859_1)) {
+            PdnReader pdn = new PdnReader(reader);
+            pdn.setSkipInvalid(skipInvalid);
+            long count = pdn.forEach(consumer);
+            return new long[] {count, pdn.getSkipped()};
+          }
+        }));
+      }
+      long[] totals = new long[2];
+      for (Future<long[]> future : futures) {
+        long[] counts = future.get();
+        totals[0] += counts[0];
+        totals[1] += counts[1];
+      }
+      return totals;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Finds the first game that starts at or after an offset of a file: a line
+   * starting with {@code [} after a line that does not.
+   *
+   * @return the offset of the game, or the size of the file if there is none.
+   */
+  static long findGameStart(FileChannel channel, long from) throws IOException {
+    if (from == 0) {
+      return 0;
+    }
+    ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    long offset = from;
+    boolean lineStart = false, seenLine = false, lastWasTag = true;
+    while (channel.read(bytes, offset) > 0) {
+      bytes.flip();
+      while (bytes.hasRemaining()) {
+        byte b = bytes.get();
+        if (lineStart) {
+          if (b == '[' && seenLine && !lastWasTag) {
+            return offset + bytes.position() - 1;
+          }
+          lastWasTag = b == '[';
+          seenLine = true;
+        }
+        lineStart = b == '\n';
+        if (lineStart && !seenLine) {
+          lastWasTag = true;
+        }
+      }
+      offset += bytes.limit();
+      bytes.clear();
+    }
+    return channel.size();
+  }
+
+  /**
+   * Finds the legal move matching a move's text, such as {@code 11-15},
+   * {@code 15x24} or {@code 15x24x31}.
+   *
+   * @return the packed move, or 0 if no legal move matches.
+   */
+  private long parseMove(Game game, String text) {
+    String[] squares = text.split("[-x:]");
+    if (squares.length < 2) {
+      return 0;
+    }
+    int[] indices = new int[squares.length];
+    for (int i = 0; i < squares.length; i++) {
+      try {
+        indices[i] = Integer.parseInt(squares[i]) - 1;
+      } catch (NumberFormatException e) {
+        return 0;
+      }
+    }
+    int from = indices[0], to = indices[indices.length - 1];
+    int n = game.getMoves(legal);
+    Board board = null;
+    for (int i = 0; i < n; i++) {
+      long move = legal.get(i);
+      if (Move.getStartIndex(move) != from || Move.getEndIndex(move) != to) {
+        continue;
+      }
+      if (indices.length == 2) {
+        return move;
+      }
+
+      // Intermediate squares pick between captures with the same ends
+      board = (board == null) ? game.getBoard() : board;
+      int length = BitboardGenerator.getPath(board.getBlackBits(), board.getWhiteBits(),
+        board.getKingBits(), move, path);
+      boolean matches = length == indices.length;
+      for (int j = 0; matches && j < length; j++) {
+        matches = path[j] == indices[j];
+      }
+      if (matches) {
+        return move;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Makes a copy of a game with its tags but a different start position.
+   */
+  private static PdnGame withStart(PdnGame pdn, Game start) {
+    PdnGame copy = new PdnGame(start);
+    for (Map.Entry<String, String> tag : pdn.getTags().entrySet()) {
+      copy.setTag(tag.getKey(), tag.getValue());
+    }
+    copy.setResult(pdn.getResult());
+    return copy;
+  }
+
+  /**
+   * Checks if a word has a move's separator, so bare numbers are skipped.
+   */
+  private static boolean hasSeparator(String move) {
+    return move.indexOf('-') > 0 || move.indexOf('x') > 0 || move.indexOf(':') > 0;
+  }
+
+  /**
+   * Removes move strength marks such as {@code !} and {@code ?} and any
+   * trailing {@code *} from a move.
+   */
+  private static String stripStrength(String move) {
+    int end = move.length();
+    while (end > 0 && "!?*".indexOf(move.charAt(end - 1)) >= 0) {
+      end--;
+    }
+    return move.substring(0, end);
+  }
+
+  /**
+   * Reads a tag pair, such as {@code [Event "Club match"]}.
+   */
+  private void readTag(PdnGame pdn) throws IOException {
+    read();
+    StringBuilder name = new StringBuilder();
+    int c;
+    while ((c = read()) >= 0 && c != '"' && c != ']') {
+      if (!Character.isWhitespace(c)) {
+        name.append((char) c);
+      }
+    }
+    StringBuilder value = new StringBuilder();
+    if (c == '"') {
+      while ((c = read()) >= 0 && c != '"') {
+        if (c == '\\') {
+          c = read();
+        }
+        if (c >= 0) {
+          value.append((char) c);
+        }
+      }
+      skipTo(']');
+    }
+    if (name.length() > 0) {
+      pdn.setTag(name.toString(), value.toString());
+    }
+  }
+
+  /**
+   * Reads a word starting with a character already read into {@link #token}.
+   */
+  private void readWord(int first) throws IOException {
+    token.setLength(0);
+    token.append((char) first);
+    int c;
+    while ((c = peek()) >= 0 && !Character.isWhitespace(c) && "[]{}();".indexOf(c) < 0) {
+      token.append((char) read());
+    }
+  }
+
+  /**
+   * Skips a variation, including any nested in it.
+   */
+  private void skipVariation() throws IOException {
+    int depth = 1, c;
+    while (depth > 0 && (c = read()) >= 0) {
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == '{') {
+        skipTo('}');
+      }
+    }
+  }
+
+  /**
+   * Skips past a character.
+   */
+  private void skipTo(int end) throws IOException {
+    int c;
+    while ((c = read()) >= 0 && c != end) {
+      // Skip
+    }
+  }
+
+  private int peek() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    return buffer[position];
+  }
+
+  private int read() throws IOException {
+    if (position == limit && !fill()) {
+      return -1;
+    }
+    char c = buffer[position++];
+    if (c == '\n') {
+      line++;
+    }
+    return c;
+  }
+
+  private boolean fill() throws IOException {
+    int n = in.read(buffer, 0, buffer.length);
+    this.position = 0;
+    this.limit = Math.max(0, n);
+    return n > 0;
+  }
+
+  /**
+   * Reads a range of a file.
+   */
+  private static class RangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private long position;
+    private final long end;
+
+    RangeInputStream(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+      bytes.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (!bytes.hasRemaining()) {
+        if (position >= end) {
+          return -1;
+        }
+        bytes.clear();
+        bytes.limit((int) Math.min(bytes.capacity(), end - position));
+        int n = channel.read(bytes, position);
+        bytes.flip();
+        if (n <= 0) {
+          return -1;
+        }
+        position += n;
+      }
+      int n = Math.min(len, bytes.remaining());
+      bytes.get(b, off, n);
+      return n;
+    }
+  }
+}
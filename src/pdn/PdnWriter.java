@@ -0,0 +1,125 @@
+package pdn;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import logic.BitboardGenerator;
+import model.Game;
+import model.Move;
+import model.MoveList;
+import model.Position;
+
+/**
+ * Writes games in Portable Draughts Notation (see {@link PdnGame}). Each game
+ * is written as its tag pairs, a FEN tag if it does not start from the
+ * initial position, and numbered moves wrapped at {@link #LINE_WIDTH}
+ * characters, ending with the result and a blank line.
+ *
+ * <p>Captures are written with every square the checker lands on, such as
+ * {@code 15x24x31}, so the text is never ambiguous.
+ */
+public class PdnWriter {
+
+  /** The width at which move text is wrapped. */
+  public static final int LINE_WIDTH = 80;
+
+  /** The destination of the text. */
+  private final Writer out;
+
+  /** The game replayed to work out each capture's path. */
+  private final Game game = new Game();
+
+  /** The buffer of the tiles a capture visits. */
+  private final int[] path = new int[BitboardGenerator.MAX_PATH];
+
+  public PdnWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Writes one game.
+   */
+  public void write(PdnGame pdn) throws IOException {
+    // Tag pairs, with the result and start position kept in step with the game
+    for (Map.Entry<String, String> tag : pdn.getTags().entrySet()) {
+      if (!tag.getKey().equals("Result") && !tag.getKey().equals("FEN")) {
+        writeTag(tag.getKey(), tag.getValue());
+      }
+    }
+    String result = PdnGame.getResultText(pdn.getResult());
+    writeTag("Result", result);
+    if (!pdn.isInitialStart()) {
+      writeTag("FEN", PdnGame.toFen(pdn.getStart()));
+    }
+
+    // Numbered moves
+    StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+    pdn.replay(game, 0);
+    int number = 1;
+    MoveList moves = pdn.getMoves();
+    for (int i = 0; i < moves.size(); i++) {
+      long move = moves.get(i);
+      if (game.isP1Turn()) {
+        append(line, number + ".");
+      } else if (i == 0) {
+        append(line, number + "...");
+      }
+      append(line, toText(move));
+      if (!game.isP1Turn()) {
+        number++;
+      }
+      game.makeMove(move);
+    }
+    append(line, result);
+    out.write(line.toString());
+    out.write("\n\n");
+  }
+
+  /**
+   * Writes the text of a move on the current position of {@link #game}.
+   */
+  private String toText(long move) {
+    if (!Move.isSkip(move)) {
+      return (Move.getStartIndex(move) + 1) + "-" + (Move.getEndIndex(move) + 1);
+    }
+    Position position = game.getPosition();
+    int n = BitboardGenerator.getPath(position.getBlackBits(), position.getWhiteBits(),
+      position.getKingBits(), move, path);
+    if (n == 0) {
+      return (Move.getStartIndex(move) + 1) + "x" + (Move.getEndIndex(move) + 1);
+    }
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < n; i++) {
+      text.append(i == 0 ? "" : "x").append(path[i] + 1);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Adds a token to the current line of move text, writing the line out
+   * first if the token does not fit.
+   */
+  private void append(StringBuilder line, String token) throws IOException {
+    if (line.length() > 0 && line.length() + 1 + token.length() > LINE_WIDTH) {
+      out.write(line.toString());
+      out.write('\n');
+      line.setLength(0);
+    }
+    line.append(line.length() == 0 ? "" : " ").append(token);
+  }
+
+  private void writeTag(String name, String value) throws IOException {
+    out.write('[');
+    out.write(name);
+    out.write(" \"");
+    out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+    out.write("\"]\n");
+  }
+
+  /**
+   * Flushes the destination.
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+}
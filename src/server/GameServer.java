@@ -0,0 +1,272 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import model.Game;
+
+/**
+ * Hosts many games at once over a line-based TCP protocol on the loopback
+ * interface. Every connection is handled by its own thread (a virtual thread
+ * when the JVM supports them) and may create and play any number of
+ * {@link Session}s, which are kept in a registry shared by all connections.
+ *
+ * <p>Threads are per connection, not per session: one connection's thread
+ * runs the requests of every session it created, in the order they arrive.
+ * Requests on one connection are answered one line at a time anyway, so a
+ * thread per session would only add hand-offs, and a client wanting its
+ * sessions played in parallel opens more connections.
+ *
+ * <p>A session belongs to the connection that created it. Any connection may
+ * read its state, but only its owner may move in it or close it, and it is
+ * removed when its owner disconnects.
+ *
+ * <p>Each request is one line and gets one line in reply, starting with
+ * {@code OK} or {@code ERR}:
+ * <pre>
+ *   NEW [state]              OK id state     creates a session
+ *   STATE id                 OK state
+ *   MOVE id start end        OK state        plays one move or skip
+ *   CLOSE id                 OK              removes a session
+ *   QUIT                                     closes the connection
+ * </pre>
+ * A {@code MOVE} or {@code CLOSE} on another connection's session gets
+ * {@code ERR not owner}.
+ */
+public class GameServer implements AutoCloseable {
+
+  /** The default port to listen on. */
+  public static final int DEFAULT_PORT = 7474;
+
+  /** The number of connections waiting to be accepted the server allows. */
+  private static final int BACKLOG = 4096;
+
+  /** The socket accepting connections. */
+  private final ServerSocket serverSocket;
+
+  /** The threads handling connections. */
+  private final ExecutorService handlers;
+
+  /** The sessions being played, by id. */
+  private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+  /** The open connections. */
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+  /** The id of the next session. */
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  /** The thread accepting connections. */
+  private final Thread acceptor;
+
+  /**
+   * Creates a server listening on a port of the loopback interface and
+   * starts accepting connections.
+   *
+   * @param port the port, or 0 for any free port.
+   */
+  public GameServer(int port) throws IOException {
+    this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    this.handlers = newPerTaskExecutor("game-session");
+    this.acceptor = new Thread(this::accept, "game-server");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Runs a server until the process is killed.
+   *
+   * <p>Usage: {@code java server.GameServer [port]}
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    GameServer server = new GameServer(port);
+    System.out.printf("Listening on %s:%d (%s threads)%n",
+      InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(),
+      hasVirtualThreads() ? "virtual" : "platform");
+    server.acceptor.join();
+  }
+
+  /**
+   * Creates an executor that runs each task on a new virtual thread, or on
+   * a cached pool of platform threads on JVMs before Java 21.
+   */
+  public static ExecutorService newPerTaskExecutor(String name) {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicLong count = new AtomicLong();
+      return Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(null, r, name + "-" + count.incrementAndGet(), 256 * 1024);
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+  /**
+   * Checks if the JVM supports virtual threads.
+   */
+  public static boolean hasVirtualThreads() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Gets the number of sessions being played.
+   */
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * Gets a session by id, or null if there is no such session.
+   */
+  public Session getSession(long id) {
+    return sessions.get(id);
+  }
+
+  /**
+   * Stops accepting connections and closes the open ones.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : connections) {
+      socket.close();
+    }
+    handlers.shutdownNow();
+    sessions.clear();
+  }
+
+  /**
+   * Accepts connections until the server socket is closed.
+   */
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        handlers.execute(() -> handle(socket));
+      } catch (IOException e) {
+        if (serverSocket.isClosed()) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Answers the requests of one connection until it closes.
+   */
+  private void handle(Socket socket) {
+    Set<Long> owned = new HashSet<>();
+    connections.add(socket);
+    try (Socket s = socket;
+         BufferedReader in = new BufferedReader(
+           new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+         BufferedWriter out = new BufferedWriter(
+           new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.trim().equalsIgnoreCase("QUIT")) {
+          break;
+        }
+        out.write(execute(line, owned));
+        out.write('\n');
+        out.flush();
+      }
+    } catch (SocketException e) {
+      // The client went away
+    } catch (IOException e) {
+      System.err.println("Connection failed: " + e);
+    } finally {
+      connections.remove(socket);
+      for (Long id : owned) {
+        sessions.remove(id);
+      }
+    }
+  }
+
+  /**
+   * Runs one request.
+   *
+   * @param owned the ids of the sessions created on the connection.
+   * @return the reply, without its line break.
+   */
+  String execute(String line, Set<Long> owned) {
+    String[] args = line.trim().split("\\s+");
+    try {
+      switch (args[0].toUpperCase()) {
+        case "NEW": {
+          long id = nextId.getAndIncrement();
+          Session session = new Session(id, args.length > 1 ? new Game(args[1]) : new Game());
+          sessions.put(id, session);
+          owned.add(id);
+          return "OK " + id + " " + session.getState();
+        }
+        case "STATE": {
+          Session session = find(args);
+          return session == null ? "ERR unknown session" : "OK " + session.getState();
+        }
+        case "MOVE": {
+          Session session = find(args);
+          if (session == null) {
+            return "ERR unknown session";
+          }
+          if (!owned.contains(session.getId())) {
+            return "ERR not owner";
+          }
+          String state = session.move(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+          return state == null ? "ERR illegal move" : "OK " + state;
+        }
+        case "CLOSE": {
+          Session session = find(args);
+          if (session == null) {
+            return "ERR unknown session";
+          }
+          if (!owned.remove(session.getId())) {
+            return "ERR not owner";
+          }
+          sessions.remove(session.getId());
+          return "OK";
+        }
+        default:
+          return "ERR unknown command";
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      return "ERR bad arguments";
+    }
+  }
+
+  /**
+   * Finds the session named by the first argument of a request.
+   */
+  private Session find(String[] args) {
+    return sessions.get(Long.parseLong(args[1]));
+  }
+}
@@ -0,0 +1,195 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import logic.BitboardGenerator;
+import model.Game;
+import model.MoveList;
+import model.Position;
+
+/**
+ * Measures the move latency of a {@link GameServer} with many sessions open
+ * at once. The client opens a number of connections, creates its share of
+ * the sessions on each and, once every session exists, plays random legal
+ * moves on them in turn, timing each {@code MOVE} request from send to reply.
+ * The latency percentiles and overall throughput are printed at the end.
+ *
+ * <p>Usage: {@code java server.LoadTestClient [sessions] [connections] [moves] [port]}
+ * <br>With no port (or port 0), a server is started in the same JVM.
+ */
+public class LoadTestClient {
+
+  /** The fixed seed the random moves are drawn from. */
+  private static final long SEED = 0x4C6F616454657374L;
+
+  public static void main(String[] args) throws Exception {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int connections = args.length > 1 ? Integer.parseInt(args[1]) : Math.min(sessions, 1000);
+    int moves = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    int port = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+    GameServer server = port == 0 ? new GameServer(0) : null;
+    try {
+      long[] latencies = run(port == 0 ? server.getPort() : port, sessions, connections, moves);
+      print(latencies, sessions, connections);
+    } finally {
+      if (server != null) {
+        server.close();
+      }
+    }
+  }
+
+  /**
+   * Runs the load test against a server.
+   *
+   * @return the latency of every move, in nanoseconds, sorted.
+   */
+  public static long[] run(int port, int sessions, int connections, int moves)
+      throws InterruptedException, IOException {
+    connections = Math.max(1, Math.min(connections, sessions));
+    CountDownLatch created = new CountDownLatch(connections);
+    ExecutorService workers = GameServer.newPerTaskExecutor("load-test");
+    List<Future<long[]>> futures = new ArrayList<>();
+    long start = System.nanoTime();
+    try {
+      for (int c = 0; c < connections; c++) {
+        int share = sessions / connections + (c < sessions % connections ? 1 : 0);
+        int connection = c;
+        futures.add(workers.submit(() -> play(port, share, moves, connection, created)));
+      }
+
+      long[][] results = new long[connections][];
+      int total = 0;
+      for (int c = 0; c < connections; c++) {
+        results[c] = futures.get(c).get();
+        total += results[c].length;
+      }
+      long[] latencies = new long[total];
+      int n = 0;
+      for (long[] result : results) {
+        System.arraycopy(result, 0, latencies, n, result.length);
+        n += result.length;
+      }
+      Arrays.sort(latencies);
+      System.out.printf("Played %d moves in %.1f s%n", total, (System.nanoTime() - start) / 1e9);
+      return latencies;
+    } catch (ExecutionException e) {
+      throw new IOException("Load test connection failed", e.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates sessions on one connection, waits for every connection to do the
+   * same and then plays moves on each session in turn.
+   *
+   * @return the latency of each move played, in nanoseconds.
+   */
+  private static long[] play(int port, int sessions, int moves, int connection,
+      CountDownLatch created) throws IOException, InterruptedException {
+    SplittableRandom random = new SplittableRandom(SEED + connection);
+    long[] latencies = new long[sessions * moves];
+    int n = 0;
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+         BufferedReader in = new BufferedReader(
+           new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+         BufferedWriter out = new BufferedWriter(
+           new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+      socket.setTcpNoDelay(true);
+      long[] ids = new long[sessions];
+      Game[] games = new Game[sessions];
+      try {
+        for (int i = 0; i < sessions; i++) {
+          String[] reply = request(in, out, "NEW").split(" ");
+          ids[i] = Long.parseLong(reply[1]);
+          games[i] = new Game(reply[2]);
+        }
+      } finally {
+        created.countDown();
+      }
+      created.await();
+
+      // Play a random legal step on each unfinished session in turn
+      MoveList list = new MoveList();
+      int[] path = new int[BitboardGenerator.MAX_PATH];
+      for (int round = 0; round < moves; round++) {
+        for (int i = 0; i < sessions; i++) {
+          Game game = games[i];
+          if (game.getMoves(list) == 0) {
+            continue;
+          }
+          Position position = game.getPosition();
+          BitboardGenerator.getPath(position.getBlackBits(), position.getWhiteBits(),
+            position.getKingBits(), list.get(random.nextInt(list.size())), path);
+          long sent = System.nanoTime();
+          String reply = request(in, out, "MOVE " + ids[i] + " " + path[0] + " " + path[1]);
+          latencies[n++] = System.nanoTime() - sent;
+          if (!reply.startsWith("OK ")) {
+            throw new IOException("Move rejected: " + reply);
+          }
+          game.setGameState(reply.substring(3));
+        }
+      }
+
+      for (long id : ids) {
+        request(in, out, "CLOSE " + id);
+      }
+      out.write("QUIT\n");
+      out.flush();
+    }
+    return Arrays.copyOf(latencies, n);
+  }
+
+  /**
+   * Sends one request and waits for its reply.
+   */
+  private static String request(BufferedReader in, BufferedWriter out, String line)
+      throws IOException {
+    out.write(line);
+    out.write('\n');
+    out.flush();
+    String reply = in.readLine();
+    if (reply == null) {
+      throw new IOException("Connection closed by server");
+    }
+    return reply;
+  }
+
+  /**
+   * Prints the latency percentiles of a run.
+   */
+  private static void print(long[] latencies, int sessions, int connections) {
+    System.out.printf("%d sessions over %d connections (%s threads)%n", sessions, connections,
+      GameServer.hasVirtualThreads() ? "virtual" : "platform");
+    if (latencies.length == 0) {
+      return;
+    }
+    System.out.printf("move latency: p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+      percentile(latencies, 50) / 1e3, percentile(latencies, 90) / 1e3,
+      percentile(latencies, 99) / 1e3, percentile(latencies, 99.9) / 1e3,
+      latencies[latencies.length - 1] / 1e3);
+  }
+
+  /**
+   * Gets a percentile of sorted values (nearest rank).
+   */
+  static long percentile(long[] sorted, double percent) {
+    int rank = (int) Math.ceil(percent / 100 * sorted.length);
+    return sorted[Math.max(0, Math.min(rank, sorted.length) - 1)];
+  }
+}
@@ -0,0 +1,86 @@
+package server;
+
+import java.util.concurrent.locks.ReentrantLock;
+import model.Game;
+
+/**
+ * One game hosted by a {@link GameServer}. A {@link Game} is not thread-safe,
+ * so every access goes through this session's lock and calls on the same
+ * session are applied one at a time, while different sessions proceed in
+ * parallel. Only the connection that created a session moves in it, but any
+ * connection may read its state while it does.
+ *
+ * <p>The lock is a {@link ReentrantLock} rather than {@code synchronized} so
+ * that a virtual thread waiting for it does not pin its carrier thread.
+ */
+public class Session {
+
+  /** The id of the session within its server. */
+  private final long id;
+
+  /** The game being played. */
+  private final Game game;
+
+  /** The lock serializing access to the game. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** The number of moves played. */
+  private long moves;
+
+  public Session(long id, Game game) {
+    this.id = id;
+    this.game = (game == null) ? new Game() : game;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Plays one step of a move (a simple move or one skip) on the game.
+   *
+   * @return the game state after the move, or null if the move is not legal.
+   */
+  public String move(int startIndex, int endIndex) {
+    lock.lock();
+    try {
+      if (!game.move(startIndex, endIndex)) {
+        return null;
+      }
+      moves++;
+      return game.getGameState();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the game state (see {@link Game#getGameState}).
+   */
+  public String getState() {
+    lock.lock();
+    try {
+      return game.getGameState();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean isGameOver() {
+    lock.lock();
+    try {
+      return game.isGameOver();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getMoves() {
+    lock.lock();
+    try {
+      return moves;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
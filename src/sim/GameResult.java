@@ -0,0 +1,141 @@
+package sim;
+
+/**
+ * The outcome of one simulated game: who won, how long it lasted, the final
+ * game state and how long each turn took to play.
+ */
+public class GameResult {
+
+  /** The winner of a game black won. */
+  public static final int BLACK = 1;
+
+  /** The winner of a game white won. */
+  public static final int WHITE = -1;
+
+  /** The winner of a drawn game, including one stopped at the ply limit. */
+  public static final int DRAW = 0;
+
+  /** The winner of a game stopped because a player did not move. */
+  public static final int ABORTED = 2;
+
+  /** The number of the game within its run. */
+  private final int game;
+
+  /** The number of the thread that played the game. */
+  private final int thread;
+
+  /** The winner ({@link #BLACK}, {@link #WHITE}, {@link #DRAW} or {@link #ABORTED}). */
+  private final int winner;
+
+  /** The final game state (see {@code Game.getGameState}). */
+  private final String state;
+
+  /** The number of turns played, including any random opening moves. */
+  private final int plies;
+
+  /** The time each turn played by a player took, in nanoseconds. */
+  private final long[] moveNanos;
+
+  /** The total time black's player spent on its turns, in nanoseconds. */
+  private final long blackNanos;
+
+  /** The total time white's player spent on its turns, in nanoseconds. */
+  private final long whiteNanos;
+
+  public GameResult(
+    int game,
+    int thread,
+    int winner,
+    String state,
+    int plies,
+    long[] moveNanos,
+    long blackNanos,
+    long whiteNanos
+  ) {
+    this.game = game;
+    this.thread = thread;
+    this.winner = winner;
+    this.state = state;
+    this.plies = plies;
+    this.moveNanos = (moveNanos == null) ? new long[0] : moveNanos;
+    this.blackNanos = blackNanos;
+    this.whiteNanos = whiteNanos;
+  }
+
+  public int getGame() {
+    return game;
+  }
+
+  public int getThread() {
+    return thread;
+  }
+
+  public int getWinner() {
+    return winner;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public int getPlies() {
+    return plies;
+  }
+
+  /**
+   * Gets the time each turn played by a player took, in nanoseconds.
+   */
+  public long[] getMoveNanos() {
+    return moveNanos.clone();
+  }
+
+  /**
+   * Gets the total time a side's player spent on its turns, in nanoseconds.
+   */
+  public long getNanos(boolean isP1) {
+    return isP1 ? blackNanos : whiteNanos;
+  }
+
+  /**
+   * Gets the name of a winner, as written to result files.
+   */
+  public static String getWinnerName(int winner) {
+    switch (winner) {
+      case BLACK:
+        return "black";
+      case WHITE:
+        return "white";
+      case DRAW:
+        return "draw";
+      default:
+        return "aborted";
+    }
+  }
+
+  /**
+   * Appends the result as one tab-separated line: game, thread, winner,
+   * plies, black's and white's total time in microseconds, final state and
+   * the time of each turn played by a player in microseconds
+   * (space-separated).
+   */
+  public void appendTo(StringBuilder line) {
+    line.append(game).append('\t')
+        .append(thread).append('\t')
+        .append(getWinnerName(winner)).append('\t')
+        .append(plies).append('\t')
+        .append(blackNanos / 1000).append('\t')
+        .append(whiteNanos / 1000).append('\t')
+        .append(state).append('\t');
+    for (int i = 0; i < moveNanos.length; i++) {
+      line.append(i == 0 ? "" : " ").append(moveNanos[i] / 1000);
+    }
+    line.append('\n');
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder line = new StringBuilder();
+    appendTo(line);
+    return line.substring(0, line.length() - 1);
+  }
+}
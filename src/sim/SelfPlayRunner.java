@@ -0,0 +1,362 @@
+package sim;
+
+import engine.ComputerPlayer;
+import engine.Search;
+import engine.Tablebase;
+import engine.TranspositionTable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import model.Game;
+import model.MoveList;
+import model.Player;
+
+/**
+ * Plays many games between two kinds of {@link Player} across a pool of
+ * threads, without any user interface. Each thread makes its own pair of
+ * players from the given factories, since players such as
+ * {@link ComputerPlayer} keep per-search state, and plays games until the run
+ * is done.
+ *
+ * <p>Each game can start with a few random moves, drawn from a seed by game
+ * number, so that deterministic players do not play the same game every
+ * time. A game ends when it is over, when it reaches the ply limit (a draw)
+ * or when a player does not move (aborted). Results are streamed as
+ * tab-separated lines (see {@link GameResult#appendTo}) to a writer as games
+ * finish, and the run reports its overall and per-thread throughput.
+ */
+public class SelfPlayRunner {
+
+  /** The default ply at which an unfinished game is scored as a draw. */
+  public static final int DEFAULT_MAX_PLIES = 200;
+
+  /** The default number of random moves that start each game. */
+  public static final int DEFAULT_RANDOM_PLIES = 4;
+
+  /** The fixed seed the games' random openings are drawn from. */
+  private static final long SEED = 0x53656C66506C6179L;
+
+  /** The column names of a result file. */
+  private static final String HEADER =
+      "game\tthread\twinner\tplies\tblack_us\twhite_us\tstate\tmoves_us\n";
+
+  /** The factory of black's players. */
+  private final Supplier<? extends Player> black;
+
+  /** The factory of white's players. */
+  private final Supplier<? extends Player> white;
+
+  /** The ply at which an unfinished game is scored as a draw. */
+  private int maxPlies = DEFAULT_MAX_PLIES;
+
+  /** The number of random moves that start each game. */
+  private int randomPlies = DEFAULT_RANDOM_PLIES;
+
+  /** The endgame database used to end games early, or null for none. */
+  private Tablebase tablebase;
+
+  public SelfPlayRunner(Supplier<? extends Player> black, Supplier<? extends Player> white) {
+    this.black = black;
+    this.white = white;
+  }
+
+  /**
+   * Plays games between two computer players searching to fixed depths.
+   *
+   * <p>Usage: {@code java sim.SelfPlayRunner [games] [file] [threads] [blackDepth] [whiteDepth]}
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    Path path = args.length > 1 && !args[1].equals("-") ? Paths.get(args[1]) : null;
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+        Runtime.getRuntime().availableProcessors();
+    int blackDepth = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+    int whiteDepth = args.length > 4 ? Integer.parseInt(args[4]) : blackDepth;
+
+    SelfPlayRunner runner = new SelfPlayRunner(
+      () -> createPlayer(blackDepth),
+      () -> createPlayer(whiteDepth)
+    );
+    Summary summary;
+    if (path == null) {
+      summary = runner.run(games, threads, null);
+    } else {
+      try (Writer out = Files.newBufferedWriter(path)) {
+        summary = runner.run(games, threads, out);
+      }
+    }
+    System.out.println(summary);
+  }
+
+  /**
+   * Creates a computer player searching to a fixed depth with its own small
+   * transposition table.
+   */
+  public static ComputerPlayer createPlayer(int depth) {
+    ComputerPlayer player = new ComputerPlayer(new Search(new TranspositionTable(4)));
+    player.getSearch().setMaxDepth(depth);
+    return player;
+  }
+
+  public int getMaxPlies() {
+    return maxPlies;
+  }
+
+  /**
+   * Sets the ply at which an unfinished game is scored as a draw.
+   */
+  public void setMaxPlies(int maxPlies) {
+    this.maxPlies = Math.max(1, maxPlies);
+  }
+
+  public int getRandomPlies() {
+    return randomPlies;
+  }
+
+  /**
+   * Sets the number of random moves that start each game.
+   */
+  public void setRandomPlies(int randomPlies) {
+    this.randomPlies = Math.max(0, randomPlies);
+  }
+
+  public Tablebase getTablebase() {
+    return tablebase;
+  }
+
+  /**
+   * Sets the endgame database used to end games as soon as their result is
+   * known, or null to play every game out.
+   */
+  public void setTablebase(Tablebase tablebase) {
+    this.tablebase = tablebase;
+  }
+
+  /**
+   * Plays a number of games across threads.
+   *
+   * @param out the writer the results are streamed to, or null for none.
+   * @return the totals and throughput of the run.
+   */
+  public Summary run(int games, int threads, Writer out) throws IOException, InterruptedException {
+    threads = Math.max(1, threads);
+    Writer writer = (out == null || out instanceof BufferedWriter) ? out :
+        new BufferedWriter(out, 1 << 16);
+    if (writer != null) {
+      writer.write(HEADER);
+    }
+
+    AtomicInteger next = new AtomicInteger();
+    Summary summary = new Summary(threads);
+    long start = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(pool.submit(() -> {
+          Player p1 = black.get(), p2 = white.get();
+          StringBuilder line = new StringBuilder();
+          for (int game = next.getAndIncrement(); game < games; game = next.getAndIncrement()) {
+            long gameStart = System.nanoTime();
+            GameResult result = play(game, thread, p1, p2);
+            summary.add(result, System.nanoTime() - gameStart);
+            if (writer != null) {
+              line.setLength(0);
+              result.appendTo(line);
+              synchronized (writer) {
+                writer.append(line);
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      pool.shutdownNow();
+      if (writer != null) {
+        writer.flush();
+      }
+    }
+    summary.nanos = System.nanoTime() - start;
+    return summary;
+  }
+
+  /**
+   * Plays one game between two players.
+   */
+  public GameResult play(int number, int thread, Player p1, Player p2) {
+    Game game = new Game();
+    game.setAdjudicator(tablebase);
+
+    // Open with random moves so that games differ
+    SplittableRandom random = new SplittableRandom(SEED + number);
+    MoveList moves = new MoveList();
+    int plies = 0;
+    for (; plies < randomPlies && game.getMoves(moves) > 0; plies++) {
+      game.makeMove(moves.get(random.nextInt(moves.size())));
+    }
+
+    long[] moveNanos = new long[Math.max(16, maxPlies - plies)];
+    long blackNanos = 0, whiteNanos = 0;
+    int timed = 0, winner = GameResult.DRAW;
+    while (plies < maxPlies) {
+      if (game.isGameOver()) {
+        winner = getWinner(game);
+        break;
+      }
+      boolean isP1Turn = game.isP1Turn();
+      long hash = game.getHash();
+      long start = System.nanoTime();
+      (isP1Turn ? p1 : p2).updateGame(game);
+      long nanos = System.nanoTime() - start;
+      if (game.getHash() == hash) {
+        winner = GameResult.ABORTED;
+        break;
+      }
+
+      if (timed == moveNanos.length) {
+        moveNanos = Arrays.copyOf(moveNanos, timed * 2);
+      }
+      moveNanos[timed++] = nanos;
+      if (isP1Turn) {
+        blackNanos += nanos;
+      } else {
+        whiteNanos += nanos;
+      }
+      if (game.isP1Turn() != isP1Turn) {
+        plies++;
+      }
+    }
+
+    return new GameResult(number, thread, winner, game.getGameState(), plies,
+      Arrays.copyOf(moveNanos, timed), blackNanos, whiteNanos);
+  }
+
+  /**
+   * Gets the winner of a game that is over: the side to move has lost,
+   * unless the endgame database says otherwise.
+   */
+  private static int getWinner(Game game) {
+    int value = game.getAdjudication();
+    int sideToMove = game.isP1Turn() ? GameResult.BLACK : GameResult.WHITE;
+    if (value == Tablebase.UNKNOWN || Tablebase.isLoss(value)) {
+      return -sideToMove;
+    }
+    return Tablebase.isWin(value) ? sideToMove : GameResult.DRAW;
+  }
+
+  /**
+   * The totals and throughput of a run, overall and per thread.
+   */
+  public static class Summary {
+
+    /** The number of games each thread played. */
+    private final long[] games;
+
+    /** The number of plies each thread played. */
+    private final long[] plies;
+
+    /** The time each thread spent playing games, in nanoseconds. */
+    private final long[] busyNanos;
+
+    /** The number of games each winner won, indexed by winner + 1. */
+    private final long[] winners = new long[4];
+
+    /** The wall-clock time of the run, in nanoseconds. */
+    private long nanos;
+
+    Summary(int threads) {
+      this.games = new long[threads];
+      this.plies = new long[threads];
+      this.busyNanos = new long[threads];
+    }
+
+    synchronized void add(GameResult result, long nanos) {
+      int thread = result.getThread();
+      games[thread]++;
+      plies[thread] += result.getPlies();
+      busyNanos[thread] += nanos;
+      winners[result.getWinner() + 1]++;
+    }
+
+    public synchronized long getGames() {
+      long total = 0;
+      for (long n : games) {
+        total += n;
+      }
+      return total;
+    }
+
+    public synchronized long getPlies() {
+      long total = 0;
+      for (long n : plies) {
+        total += n;
+      }
+      return total;
+    }
+
+    /**
+     * Gets the number of games a winner won (see {@link GameResult}).
+     */
+    public synchronized long getWins(int winner) {
+      return winners[winner + 1];
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    /**
+     * Gets the number of games played per second of wall-clock time.
+     */
+    public double getGamesPerSecond() {
+      return nanos <= 0 ? 0 : getGames() / (nanos / 1e9);
+    }
+
+    /**
+     * Gets the number of games a thread played per second it spent playing.
+     */
+    public synchronized double getGamesPerSecond(int thread) {
+      return busyNanos[thread] <= 0 ? 0 : games[thread] / (busyNanos[thread] / 1e9);
+    }
+
+    @Override
+    public synchronized String toString() {
+      StringBuilder text = new StringBuilder();
+      text.append(String.format("%d games, %d plies in %.1f s: %.1f games/sec, %.0f games/hour%n",
+        getGames(), getPlies(), nanos / 1e9, getGamesPerSecond(), getGamesPerSecond() * 3600));
+      text.append(String.format("black %d, white %d, draw %d, aborted %d%n",
+        getWins(GameResult.BLACK), getWins(GameResult.WHITE), getWins(GameResult.DRAW),
+        getWins(GameResult.ABORTED)));
+      text.append(String.format("%-8s %10s %12s %12s%n", "thread", "games", "plies", "games/sec"));
+      for (int t = 0; t < games.length; t++) {
+        text.append(String.format("%-8d %10d %12d %12.1f%n", t, games[t], plies[t],
+          getGamesPerSecond(t)));
+      }
+      return text.toString();
+    }
+  }
+}
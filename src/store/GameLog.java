@@ -0,0 +1,291 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import model.Game;
+import model.GameCodec;
+import model.MoveList;
+
+/**
+ * Appends finished games to a binary log file, with a sidecar index of every
+ * game's id, offset and result (see {@link GameLogIndex}). Records are only
+ * ever appended, so readers (see {@link GameLogReader}) can map and scan the
+ * file while it grows.
+ *
+ * <p>The log starts with a 16-byte header (magic, version). Each game is a
+ * 32-byte record header followed by its moves, all big-endian:
+ * <pre>
+ *   0  int    record magic
+ *   4  int    number of moves
+ *   8  long   game id
+ *   16 byte   result ({@link #BLACK}, {@link #WHITE}, {@link #DRAW} or {@link #UNKNOWN})
+ *   17 byte[] start state ({@link GameCodec}, 13 bytes)
+ *   30 short  reserved
+ *   32 long[] packed moves ({@code model.Move}), one per turn
+ * </pre>
+ *
+ * <p>Appending only writes to the file. {@link #commit} makes every game
+ * appended so far durable with one {@code force} of the log and index; when
+ * several threads commit at once, the first forces the files and the others
+ * wait for it instead of forcing them again (group commit). The log can also
+ * commit itself in the background at a fixed interval.
+ *
+ * <p>Opening an existing log drops a trailing record left incomplete by a
+ * crash and rebuilds the index if it does not match the log.
+ */
+public class GameLog implements AutoCloseable {
+
+  /** The result of a game black won. */
+  public static final int BLACK = 1;
+
+  /** The result of a game white won. */
+  public static final int WHITE = -1;
+
+  /** The result of a drawn game. */
+  public static final int DRAW = 0;
+
+  /** The result of a game that did not finish. */
+  public static final int UNKNOWN = 2;
+
+  /** The magic number at the start of a log file ("CKGL"). */
+  static final int MAGIC = 0x434B474C;
+
+  /** The version of the file format. */
+  static final int VERSION = 1;
+
+  /** The size of the file header, in bytes. */
+  static final int HEADER_SIZE = 16;
+
+  /** The magic number at the start of each record ("GREC"). */
+  static final int RECORD_MAGIC = 0x47524543;
+
+  /** The size of a record header, in bytes. */
+  static final int RECORD_HEADER_SIZE = 32;
+
+  /** The most moves a record can hold. */
+  public static final int MAX_MOVES = 0xFFFF;
+
+  /** The largest size of a record, in bytes. */
+  static final int MAX_RECORD_SIZE = RECORD_HEADER_SIZE + 8 * MAX_MOVES;
+
+  /** The log file. */
+  private final FileChannel log;
+
+  /** The index of the log. */
+  private final GameLogIndex.Writer index;
+
+  /** The lock guarding the write positions and commits. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** The condition signalled when a commit finishes. */
+  private final Condition committed = lock.newCondition();
+
+  /** The end of the last record written. */
+  private long written;
+
+  /** The end of the last record known to be durable. */
+  private long durable;
+
+  /** The flag indicating a thread is forcing the files. */
+  private boolean committing;
+
+  /** The thread committing in the background, or null for none. */
+  private ScheduledExecutorService autoCommit;
+
+  private GameLog(FileChannel log, GameLogIndex.Writer index, long written) {
+    this.log = log;
+    this.index = index;
+    this.written = written;
+    this.durable = written;
+  }
+
+  /**
+   * Opens a log for appending, creating it and its index if they do not
+   * exist.
+   */
+  public static GameLog open(Path path) throws IOException {
+    FileChannel log = FileChannel.open(path, StandardOpenOption.CREATE,
+      StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (log.size() == 0) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+        write(log, header, 0);
+        log.force(true);
+      }
+
+      // Drop a record cut short by a crash, and check the index matches
+      GameLogReader reader = GameLogReader.open(path);
+      GameLogReader.Cursor cursor = reader.cursor();
+      long count = 0;
+      while (cursor.next()) {
+        count++;
+      }
+      long end = cursor.getEnd();
+      if (log.size() > end) {
+        log.truncate(end);
+      }
+      GameLogIndex.Writer index = GameLogIndex.Writer.open(getIndexPath(path), reader, count);
+      return new GameLog(log, index, end);
+    } catch (IOException | RuntimeException e) {
+      log.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the path of a log's index file.
+   */
+  public static Path getIndexPath(Path path) {
+    return Paths.get(path.toString() + ".idx");
+  }
+
+  /**
+   * Appends a game, given its starting state, the packed moves played from
+   * it and its result. The game is not durable until {@link #commit}.
+   *
+   * @return the offset of the game's record in the log.
+   */
+  public long append(long gameId, Game start, MoveList moves, int result) throws IOException {
+    int count = moves.size();
+    if (count > MAX_MOVES) {
+      throw new IllegalArgumentException("Too many moves: " + count);
+    }
+
+    // Build the record before taking the lock
+    ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + 8 * count);
+    record.putInt(RECORD_MAGIC).putInt(count).putLong(gameId).put((byte) result);
+    GameCodec.encode(start, record);
+    record.putShort((short) 0);
+    for (int i = 0; i < count; i++) {
+      record.putLong(moves.get(i));
+    }
+    record.flip();
+
+    lock.lock();
+    try {
+      long offset = written;
+      write(log, record, offset);
+      index.append(gameId, offset, count, result);
+      this.written = offset + record.capacity();
+      return offset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Makes every game appended before this call durable. Concurrent commits
+   * share one {@code force} of the files.
+   */
+  public void commit() throws IOException {
+    lock.lock();
+    try {
+      long target = written;
+      while (durable < target) {
+        if (committing) {
+          committed.awaitUninterruptibly();
+          continue;
+        }
+
+        // Force everything written so far, letting appends continue meanwhile
+        this.committing = true;
+        long upTo = written;
+        boolean forced = false;
+        lock.unlock();
+        try {
+          index.force();
+          log.force(false);
+          forced = true;
+        } finally {
+          lock.lock();
+          this.committing = false;
+          if (forced) {
+            this.durable = Math.max(durable, upTo);
+          }
+          committed.signalAll();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Commits in the background at a fixed interval, or stops doing so if the
+   * interval is 0.
+   */
+  public synchronized void setAutoCommit(long millis) {
+    if (autoCommit != null) {
+      // Let a commit in progress finish, as interrupting it would close the files
+      autoCommit.shutdown();
+      try {
+        autoCommit.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.autoCommit = null;
+    }
+    if (millis > 0) {
+      this.autoCommit = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "game-log-commit");
+        t.setDaemon(true);
+        return t;
+      });
+      autoCommit.scheduleWithFixedDelay(() -> {
+        try {
+          commit();
+        } catch (IOException e) {
+          System.err.println("Game log commit failed: " + e);
+        }
+      }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Gets the size of the log, in bytes.
+   */
+  public long size() {
+    lock.lock();
+    try {
+      return written;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Commits every appended game and closes the log and its index.
+   */
+  @Override
+  public void close() throws IOException {
+    setAutoCommit(0);
+    try {
+      commit();
+    } finally {
+      try {
+        index.close();
+      } finally {
+        log.close();
+      }
+    }
+  }
+
+  /**
+   * Writes a whole buffer at a position of a file.
+   */
+  static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
@@ -0,0 +1,266 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Finds games in a game log (see {@link GameLog}) by id or by result without
+ * scanning the log. The index is a sidecar file written alongside the log,
+ * with a 16-byte header (magic, version) followed by one 24-byte entry per
+ * game, in log order:
+ * <pre>
+ *   0  long  game id
+ *   8  long  offset of the game's record in the log
+ *   16 int   number of moves
+ *   20 byte  result
+ *   21       reserved (3 bytes)
+ * </pre>
+ *
+ * <p>The index is memory-mapped when opened. Lookups by id use a binary
+ * search if ids were appended in increasing order, and otherwise a sorted
+ * copy of the ids built on the first lookup.
+ */
+public class GameLogIndex {
+
+  /** The magic number at the start of an index file ("CKGI"). */
+  static final int MAGIC = 0x434B4749;
+
+  /** The version of the file format. */
+  static final int VERSION = 1;
+
+  /** The size of the file header, in bytes. */
+  static final int HEADER_SIZE = 16;
+
+  /** The size of one entry, in bytes. */
+  static final int ENTRY_SIZE = 24;
+
+  /** The entries, after the header. */
+  private final ByteBuffer entries;
+
+  /** The number of entries. */
+  private final int size;
+
+  /** The flag indicating the ids are in increasing order. */
+  private final boolean sorted;
+
+  /** The ids in increasing order, built on the first lookup if not sorted. */
+  private long[] sortedIds;
+
+  /** The entry of each id in {@link #sortedIds}. */
+  private int[] sortedEntries;
+
+  private GameLogIndex(ByteBuffer entries, int size) {
+    this.entries = entries;
+    this.size = size;
+    boolean increasing = true;
+    for (int i = 1; i < size && increasing; i++) {
+      increasing = getGameId(i - 1) < getGameId(i);
+    }
+    this.sorted = increasing;
+  }
+
+  /**
+   * Opens an index file, mapping it into memory read-only.
+   */
+  public static GameLogIndex open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if (header.remaining() < 8 || header.getInt() != MAGIC || header.getInt() != VERSION) {
+        throw new IOException("Not a game log index file: " + path);
+      }
+      long count = (channel.size() - HEADER_SIZE) / ENTRY_SIZE;
+      if (count * ENTRY_SIZE > Integer.MAX_VALUE) {
+        throw new IOException("Game log index too large to map: " + path);
+      }
+      ByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+        count * ENTRY_SIZE);
+      return new GameLogIndex(entries, (int) count);
+    }
+  }
+
+  /**
+   * Gets the number of games in the index.
+   */
+  public int size() {
+    return size;
+  }
+
+  public long getGameId(int entry) {
+    return entries.getLong(entry * ENTRY_SIZE);
+  }
+
+  /**
+   * Gets the offset of a game's record in the log.
+   */
+  public long getOffset(int entry) {
+    return entries.getLong(entry * ENTRY_SIZE + 8);
+  }
+
+  public int getMoveCount(int entry) {
+    return entries.getInt(entry * ENTRY_SIZE + 16);
+  }
+
+  /**
+   * Gets the result of a game (see {@link GameLog#BLACK}).
+   */
+  public int getResult(int entry) {
+    return entries.get(entry * ENTRY_SIZE + 20);
+  }
+
+  /**
+   * Finds the entry of a game by id.
+   *
+   * @return the entry, or -1 if there is no game with the id.
+   */
+  public int find(long gameId) {
+    if (sorted) {
+      int lo = 0, hi = size - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        long id = getGameId(mid);
+        if (id < gameId) {
+          lo = mid + 1;
+        } else if (id > gameId) {
+          hi = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+    int i = Arrays.binarySearch(getSortedIds(), gameId);
+    return i < 0 ? -1 : sortedEntries[i];
+  }
+
+  /**
+   * Counts the games with a result.
+   */
+  public int count(int result) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (getResult(i) == result) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Gets the log offsets of every game with a result, in log order.
+   */
+  public long[] getOffsets(int result) {
+    long[] offsets = new long[count(result)];
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      if (getResult(i) == result) {
+        offsets[n++] = getOffset(i);
+      }
+    }
+    return offsets;
+  }
+
+  /**
+   * Sorts the ids, with their entries, the first time they are needed.
+   */
+  private synchronized long[] getSortedIds() {
+    if (sortedIds == null) {
+      long[] pairs = new long[size];
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Long.compare(getGameId(a), getGameId(b)));
+      int[] entriesById = new int[size];
+      for (int i = 0; i < size; i++) {
+        entriesById[i] = order[i];
+        pairs[i] = getGameId(order[i]);
+      }
+      this.sortedEntries = entriesById;
+      this.sortedIds = pairs;
+    }
+    return sortedIds;
+  }
+
+  /**
+   * Appends entries to an index file as a {@link GameLog} appends games.
+   * Only the log's own thread-safe methods call it.
+   */
+  static class Writer implements AutoCloseable {
+
+    /** The index file. */
+    private final FileChannel channel;
+
+    /** The buffer an entry is built in. */
+    private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+
+    /** The end of the last entry written. */
+    private long written;
+
+    private Writer(FileChannel channel, long written) {
+      this.channel = channel;
+      this.written = written;
+    }
+
+    /**
+     * Opens the index of a log for appending. If the index is missing, or
+     * does not have exactly one entry per record of the log, it is rebuilt
+     * from the log.
+     */
+    static Writer open(Path path, GameLogReader log, long records) throws IOException {
+      FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        long size = channel.size();
+        boolean valid = header.remaining() == HEADER_SIZE && header.getInt() == MAGIC &&
+                        header.getInt() == VERSION &&
+                        size == HEADER_SIZE + records * ENTRY_SIZE;
+        if (valid) {
+          return new Writer(channel, size);
+        }
+
+        // Rebuild the index from the log
+        channel.truncate(0);
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putLong(0).flip();
+        GameLog.write(channel, header, 0);
+        Writer writer = new Writer(channel, HEADER_SIZE);
+        GameLogReader.Cursor cursor = log.cursor();
+        while (cursor.next()) {
+          writer.append(cursor.getGameId(), cursor.getOffset(), cursor.getMoveCount(),
+            cursor.getResult());
+        }
+        channel.force(true);
+        return writer;
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    void append(long gameId, long offset, int moves, int result) throws IOException {
+      entry.clear();
+      entry.putLong(gameId).putLong(offset).putInt(moves).put((byte) result)
+           .put((byte) 0).putShort((short) 0).flip();
+      GameLog.write(channel, entry, written);
+      this.written += ENTRY_SIZE;
+    }
+
+    void force() throws IOException {
+      channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
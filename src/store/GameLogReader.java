@@ -0,0 +1,240 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import model.Game;
+import model.GameCodec;
+
+/**
+ * Reads a game log (see {@link GameLog}) through memory-mapped buffers, so
+ * scanning it is sequential and copies nothing: a {@link Cursor} reads each
+ * record's fields and moves straight from the mapping.
+ *
+ * <p>The file is mapped in segments of {@link #SEGMENT_SIZE} bytes, each
+ * overlapping the next by the largest record size, so every record lies
+ * wholly within the segment it starts in. A reader sees the log as it was
+ * when opened; open a new reader to see games appended since.
+ */
+public class GameLogReader {
+
+  /** The size of each mapped segment, not counting the overlap. */
+  static final long SEGMENT_SIZE = 1L << 30;
+
+  /** The mapped segments of the file. */
+  private final ByteBuffer[] segments;
+
+  /** The size of the file when it was opened. */
+  private final long size;
+
+  private GameLogReader(ByteBuffer[] segments, long size) {
+    this.segments = segments;
+    this.size = size;
+  }
+
+  /**
+   * Opens a log, mapping it into memory read-only.
+   */
+  public static GameLogReader open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < GameLog.HEADER_SIZE) {
+        throw new IOException("Not a game log file: " + path);
+      }
+      int count = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+      ByteBuffer[] segments = new ByteBuffer[count];
+      for (int i = 0; i < count; i++) {
+        long start = i * SEGMENT_SIZE;
+        long length = Math.min(SEGMENT_SIZE + GameLog.MAX_RECORD_SIZE, size - start);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+      }
+      if (segments[0].getInt(0) != GameLog.MAGIC || segments[0].getInt(4) != GameLog.VERSION) {
+        throw new IOException("Not a game log file: " + path);
+      }
+      return new GameLogReader(segments, size);
+    }
+  }
+
+  /**
+   * Scans a log and prints its number of games, moves and results, and how
+   * fast it was read.
+   *
+   * <p>Usage: {@code java store.GameLogReader [file]}
+   */
+  public static void main(String[] args) throws IOException {
+    GameLogReader reader = open(Paths.get(args.length > 0 ? args[0] : "games.log"));
+    long start = System.nanoTime();
+    long games = 0, moves = 0, checksum = 0;
+    long[] results = new long[4];
+    Cursor cursor = reader.cursor();
+    while (cursor.next()) {
+      games++;
+      results[cursor.getResult() + 1]++;
+      int n = cursor.getMoveCount();
+      moves += n;
+      for (int i = 0; i < n; i++) {
+        checksum += cursor.getMove(i);
+      }
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d games, %d moves (black %d, white %d, draw %d, unknown %d)%n",
+      games, moves, results[GameLog.BLACK + 1], results[GameLog.WHITE + 1],
+      results[GameLog.DRAW + 1], results[GameLog.UNKNOWN + 1]);
+    System.out.printf("Scanned %.1f MB in %.3f s: %.0f moves/sec (checksum %x)%n",
+      reader.size() / 1e6, seconds, moves / seconds, checksum);
+  }
+
+  /**
+   * Gets the size of the log when it was opened, in bytes.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Creates a cursor before the first record.
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Creates a cursor on the record at an offset (for example from
+   * {@link GameLogIndex#getOffset}).
+   *
+   * @throws IllegalArgumentException if there is no complete record there.
+   */
+  public Cursor cursor(long offset) {
+    Cursor cursor = new Cursor();
+    if (!cursor.seek(offset)) {
+      throw new IllegalArgumentException("No game record at offset " + offset);
+    }
+    return cursor;
+  }
+
+  /**
+   * Replays the game recorded at an offset into a game, from its start state
+   * through every move.
+   */
+  public void replay(long offset, Game game) {
+    cursor(offset).replay(game);
+  }
+
+  /**
+   * Reads the records of a log one at a time.
+   */
+  public class Cursor {
+
+    /** The segment holding the current record. */
+    private ByteBuffer segment;
+
+    /** The index of the current record in its segment. */
+    private int index;
+
+    /** The offset of the current record, or -1 before the first. */
+    private long offset = -1;
+
+    /** The offset after the current record. */
+    private long end = GameLog.HEADER_SIZE;
+
+    /**
+     * Moves to the next record.
+     *
+     * @return false if there are no more complete records.
+     */
+    public boolean next() {
+      return seek(end);
+    }
+
+    /**
+     * Moves to the record at an offset.
+     *
+     * @return false if there is no complete record there, in which case the
+     *         cursor is left where it was.
+     */
+    boolean seek(long position) {
+      if (position < GameLog.HEADER_SIZE || position + GameLog.RECORD_HEADER_SIZE > size) {
+        return false;
+      }
+      ByteBuffer s = segments[(int) (position / SEGMENT_SIZE)];
+      int i = (int) (position % SEGMENT_SIZE);
+      int moves = s.getInt(i + 4);
+      if (s.getInt(i) != GameLog.RECORD_MAGIC || moves < 0 || moves > GameLog.MAX_MOVES ||
+          position + GameLog.RECORD_HEADER_SIZE + 8L * moves > size) {
+        return false;
+      }
+      this.segment = s;
+      this.index = i;
+      this.offset = position;
+      this.end = position + GameLog.RECORD_HEADER_SIZE + 8L * moves;
+      return true;
+    }
+
+    /**
+     * Gets the offset of the current record in the log.
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /**
+     * Gets the offset after the current record, which is where the next
+     * record starts.
+     */
+    public long getEnd() {
+      return end;
+    }
+
+    public long getGameId() {
+      return segment.getLong(index + 8);
+    }
+
+    /**
+     * Gets the result of the game (see {@link GameLog#BLACK}).
+     */
+    public int getResult() {
+      return segment.get(index + 16);
+    }
+
+    public int getMoveCount() {
+      return segment.getInt(index + 4);
+    }
+
+    /**
+     * Gets a packed move of the game.
+     */
+    public long getMove(int i) {
+      return segment.getLong(index + GameLog.RECORD_HEADER_SIZE + 8 * i);
+    }
+
+    /**
+     * Sets a game to the start state of the current record.
+     */
+    public void getStart(Game game) {
+      GameCodec.decode(segment, index + 17, game);
+    }
+
+    /**
+     * Sets a game to the start state of the current record and plays every
+     * move on it.
+     */
+    public void replay(Game game) {
+      replay(game, getMoveCount());
+    }
+
+    /**
+     * Sets a game to the start state of the current record and plays its
+     * first moves on it.
+     */
+    public void replay(Game game, int moves) {
+      getStart(game);
+      int n = Math.min(moves, getMoveCount());
+      for (int i = 0; i < n; i++) {
+        game.makeMove(getMove(i));
+      }
+    }
+  }
+}
@@ -4,15 +4,71 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
 import javax.swing.*;
-import logic.MoveGenerator; // Ensure this class exists in the 'logic' package
+import engine.AnalysisService;
+import engine.Search;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import logic.BitboardGenerator;
+import metrics.LatencyRecorder;
+import metrics.Metrics;
 import model.Board;
 import model.Game;
-
+import model.Move;
+import model.Position;
+
+/**
+ * Draws the board in layers: the tiles and labels are drawn once into a
+ * background image, and each kind of checker is drawn once into a sprite,
+ * both rebuilt only when the size changes. A repaint copies the background
+ * and blits a sprite per checker, and a move repaints only the tiles it
+ * changed, the selection and the turn sign.
+ *
+ * <p>Moves are animated one step at a time, so a multi-skip plays as a chain
+ * of hops. A {@link Timer} drives the frames and places the moving checker by
+ * the time elapsed, so late frames are skipped rather than slowing the move
+ * down, and each frame repaints only the area the checker moved through.
+ * F3 toggles an overlay with the frame rate and paint time.
+ *
+ * <p>An {@link AnalysisService} searches each new position in the
+ * background and the board shows its best move so far as a hint, outlining
+ * the tiles the move starts and ends on. The event thread only hands the
+ * position over and draws the results, so clicks are handled as quickly at
+ * any search depth. F2 toggles the hints.
+ */
 public class CheckerBoard extends JButton {
 
   private static final long serialVersionUID = -6014690893709316364L;
   private static final int PADDING = 16;
+  private static final int BOX_PADDING = 4;
+  private static final int SIGN_PADDING = 10;
+  private static final Font LABEL_FONT = new Font("SansSerif", Font.BOLD, 12);
+  private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 20);
+  private static final Color VALID_SELECTION = Color.GREEN;
+  private static final Color INVALID_SELECTION = new Color(0, 0, 255);
+  private static final Color KING_HIGHLIGHT = new Color(255, 240, 0);
+  private static final Color GAME_OVER_BACKGROUND = new Color(240, 240, 255);
+  private static final String GAME_OVER = "Game Over!";
+  private static final Color STATS_BACKGROUND = new Color(0, 0, 0, 160);
+  private static final Rectangle STATS_BOUNDS = new Rectangle(0, 0, 180, 22);
+  private static final Color HINT = new Color(0, 200, 255, 200);
+  private static final Stroke HINT_STROKE = new BasicStroke(3);
+  private static final int HINT_WIDTH = 200;
+
+  /** The time between frames, in milliseconds (about 60 frames a second). */
+  private static final int FRAME_MILLIS = 16;
+
+  /** The time a checker takes to move one step or skip, in nanoseconds. */
+  private static final long HOP_NANOS = 180_000_000L;
+
+  /** The calls and times of painting, if metrics are enabled. */
+  private static final LatencyRecorder PAINT = Metrics.recorder("CheckerBoard.paint");
+
+  private static final int[] PIECES = {
+    Board.BLACK_CHECKER, Board.BLACK_KING, Board.WHITE_CHECKER, Board.WHITE_KING
+  };
 
   private Game game;
   private CheckersWindow window;
@@ -22,6 +78,63 @@ public class CheckerBoard extends JButton {
   private Color darkTile = Color.BLACK;
   private boolean isGameOver;
 
+  /** The position as last drawn, so a change repaints only the tiles it touched. */
+  private Position shown;
+
+  /** The size the layers were built for, or -1 before they are built. */
+  private int layoutWidth = -1, layoutHeight = -1;
+
+  /** The size of a tile and the position of the top-left tile. */
+  private int boxSize, offsetX, offsetY;
+
+  /** The tiles, border and labels. */
+  private BufferedImage background;
+
+  /** The image of each kind of checker, by board ID, one tile in size. */
+  private final BufferedImage[] sprites = new BufferedImage[8];
+
+  /** The steps still to animate, the first being the one in progress. */
+  private final ArrayDeque<Hop> hops = new ArrayDeque<>();
+
+  /** The timer that fires each animation frame. */
+  private final Timer timer = new Timer(FRAME_MILLIS, e -> nextFrame());
+
+  /** The time the step in progress started, in nanoseconds. */
+  private long hopStart;
+
+  /** The area the moving checker was last drawn in, or null. */
+  private Rectangle pieceBounds;
+
+  /** The flag indicating the frame rate and paint time are drawn. */
+  private boolean showStats;
+
+  /** The number of paints since {@link #statsStart}. */
+  private int paints;
+
+  /** The start of the current second of paint counting, in nanoseconds. */
+  private long statsStart = System.nanoTime();
+
+  /** The paints in the last complete second. */
+  private int fps;
+
+  /** The moving average of the time a paint takes, in nanoseconds. */
+  private double paintNanos;
+
+  /** The engine analysing each new position for the hints. */
+  private final AnalysisService analysis = new AnalysisService(
+    new Search(new TranspositionTable()),
+    SwingUtilities::invokeLater
+  );
+
+  /** The flag indicating the engine's best move is shown. */
+  private boolean showHints = true;
+
+  /** The hash of the game state last handed to the analysis. */
+  private long analysedHash;
+
+  /** The engine's best result so far for the current state, or null. */
+  private SearchResult hint;
+
   public CheckerBoard(CheckersWindow window) {
     this(window, new Game());
   }
@@ -31,6 +144,9 @@ public class CheckerBoard extends JButton {
     this.window = window;
     configureButton();
     setupMouseListener();
+    setupKeyBindings();
+    timer.setCoalesce(true);
+    updateHint();
   }
 
   private void configureButton() {
@@ -51,13 +167,128 @@ public class CheckerBoard extends JButton {
     );
   }
 
+  private void setupKeyBindings() {
+    getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F3"), "toggleStats");
+    getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F2"), "toggleHints");
+    getActionMap().put(
+      "toggleHints",
+      new AbstractAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+          setShowHints(!showHints);
+        }
+      }
+    );
+    getActionMap().put(
+      "toggleStats",
+      new AbstractAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+          setShowStats(!showStats);
+        }
+      }
+    );
+  }
+
   public Game getGame() {
     return game;
   }
 
+  public boolean isShowStats() {
+    return showStats;
+  }
+
+  /**
+   * Sets whether the frame rate and paint time are drawn in the corner.
+   */
+  public void setShowStats(boolean showStats) {
+    this.showStats = showStats;
+    repaint(STATS_BOUNDS);
+  }
+
+  public boolean isShowHints() {
+    return showHints;
+  }
+
+  /**
+   * Sets whether the engine analyses each position and its best move is
+   * shown.
+   */
+  public void setShowHints(boolean showHints) {
+    this.showHints = showHints;
+    this.analysedHash = 0;
+    updateHint();
+  }
+
+  /**
+   * Gets the service analysing the positions for the hints, for instance to
+   * set its search depth.
+   */
+  public AnalysisService getAnalysis() {
+    return analysis;
+  }
+
+  /**
+   * Redraws the board after the game was changed elsewhere, such as by a
+   * restart, dropping any animation in progress and restarting the
+   * analysis.
+   */
   public void update() {
+    hops.clear();
+    timer.stop();
+    this.pieceBounds = null;
+    boolean wasGameOver = isGameOver;
     this.isGameOver = game.isGameOver();
-    repaint();
+    repaintChanges(selected, wasGameOver);
+  }
+
+  /**
+   * Plays a complete packed move on the game (see {@code model.Move}), such
+   * as one chosen by a computer player, animating each step of it.
+   *
+   * @return false if the move is not legal.
+   */
+  public boolean playMove(long move) {
+    Position position = game.getPosition();
+    int[] path = new int[BitboardGenerator.MAX_PATH];
+    int n = BitboardGenerator.getPath(position.getBlackBits(), position.getWhiteBits(),
+      position.getKingBits(), move, path);
+    if (n < 2 || !game.isLegalStep(path[0], path[1])) {
+      return false;
+    }
+    Point previous = selected;
+    this.selected = null;
+    for (int i = 1; i < n; i++) {
+      step(path[i - 1], path[i]);
+    }
+    boolean wasGameOver = isGameOver;
+    this.isGameOver = game.isGameOver();
+    repaintChanges(previous, wasGameOver);
+    return true;
+  }
+
+  /**
+   * Plays one step on the game and queues its animation.
+   *
+   * @return false if the step is not legal.
+   */
+  private boolean step(int startIndex, int endIndex) {
+    Position before = game.getPosition();
+    if (!game.move(startIndex, endIndex)) {
+      return false;
+    }
+    if (hops.isEmpty()) {
+      this.shown = before;
+      this.hopStart = System.nanoTime();
+      this.pieceBounds = null;
+      timer.start();
+    }
+    hops.add(new Hop(before, game.getPosition(), startIndex, endIndex));
+    return true;
   }
 
   private void handleClick(int x, int y) {
@@ -67,211 +298,447 @@ public class CheckerBoard extends JButton {
     }
 
     // Determine what square (if any) was selected
-    int boxSize = Math.min(getWidth(), getHeight()) / 8;
+    layoutBoard();
+    if (boxSize <= 0) {
+      return;
+    }
+    boolean wasGameOver = isGameOver;
     Point clickedPoint = new Point(
-      (x - PADDING) / boxSize,
-      (y - PADDING) / boxSize
+      Math.floorDiv(x - offsetX, boxSize),
+      Math.floorDiv(y - offsetY, boxSize)
     );
 
     // If the point is valid, check if it's a move or selection
+    Point previous = selected;
     if (Board.isValidPoint(clickedPoint)) {
       if (
         selected != null &&
-        game.getBoard().get(Board.toIndex(selected)) != Board.EMPTY
+        game.getPosition().get(Board.toIndex(selected)) != Board.EMPTY
       ) {
         // Try to make a move
-        if (game.move(selected, clickedPoint)) {
-          // Move was successful
-          selected = null;
+        if (step(Board.toIndex(selected), Board.toIndex(clickedPoint))) {
+          // Move was successful, keeping a checker that must skip again selected
+          int skipIndex = game.getSkipIndex();
+          selected = Board.isValidIndex(skipIndex) ? Board.toPoint(skipIndex) : null;
+          selectionValid = selected != null;
           isGameOver = game.isGameOver();
         } else {
           // Move was not successful, keep selection
           selected = clickedPoint;
+          selectionValid = game.canMoveFrom(Board.toIndex(selected));
         }
       } else {
         // New selection
         selected = clickedPoint;
-        selectionValid =
-          MoveGenerator
-            .getMoves(game.getBoard(), Board.toIndex(selected))
-            .size() >
-          0;
+        selectionValid = game.canMoveFrom(Board.toIndex(selected));
+      }
+    }
+    repaintChanges(previous, wasGameOver);
+  }
+
+  /**
+   * Repaints only what changed since the board was last drawn: the tiles
+   * whose checkers changed, the old and new selection, the turn sign and the
+   * game over sign. While a move is animated, its frames repaint the tiles.
+   */
+  private void repaintChanges(Point previousSelection, boolean wasGameOver) {
+    layoutBoard();
+    if (shown == null || boxSize <= 0) {
+      repaint();
+      return;
+    }
+    if (hops.isEmpty()) {
+      Position position = game.getPosition();
+      repaintTiles(shown, position);
+      this.shown = position;
+    }
+    repaintTile(Board.toIndex(previousSelection));
+    repaintTile(Board.toIndex(selected));
+    repaint(getSignBounds());
+    if (isGameOver != wasGameOver) {
+      repaint(getGameOverBounds());
+    }
+    updateHint();
+  }
+
+  /**
+   * Starts analysing the game state if it changed since the last analysis,
+   * clearing the old hint, or cancels the analysis if there is nothing to
+   * show.
+   */
+  private void updateHint() {
+    long hash = game.getHash();
+    if (hash == analysedHash) {
+      return;
+    }
+    this.analysedHash = hash;
+    setHint(null);
+    if (showHints && !game.isGameOver()) {
+      analysis.analyse(game, this::setHint);
+    } else {
+      analysis.cancel();
+    }
+  }
+
+  /**
+   * Shows a new result of the analysis, repainting the old and new hint.
+   */
+  private void setHint(SearchResult hint) {
+    repaintHint();
+    this.hint = hint;
+    repaintHint();
+  }
+
+  private void repaintHint() {
+    if (hint == null || !hint.hasMove()) {
+      return;
+    }
+    repaintTile(Move.getStartIndex(hint.getBestMove()));
+    repaintTile(Move.getEndIndex(hint.getBestMove()));
+    repaint(getHintBounds());
+  }
+
+  private Rectangle getHintBounds() {
+    return new Rectangle(getWidth() - HINT_WIDTH, 0, HINT_WIDTH, STATS_BOUNDS.height);
+  }
+
+  /**
+   * Repaints the tiles whose checkers differ between two boards.
+   */
+  private void repaintTiles(Position from, Position to) {
+    int changed = (from.getBlackBits() ^ to.getBlackBits()) |
+                  (from.getWhiteBits() ^ to.getWhiteBits()) |
+                  (from.getKingBits() ^ to.getKingBits());
+    while (changed != 0) {
+      repaintTile(Integer.numberOfTrailingZeros(changed));
+      changed &= changed - 1;
+    }
+  }
+
+  /**
+   * Moves the animated checker to where it should be by now, repainting the
+   * area it left and the area it entered. A step that has run its time is
+   * finished, and the next one started.
+   */
+  private void nextFrame() {
+    Hop hop = hops.peek();
+    if (hop == null || boxSize <= 0) {
+      hops.clear();
+      timer.stop();
+      repaint();
+      return;
+    }
+    long now = System.nanoTime();
+    double t = (now - hopStart) / (double) HOP_NANOS;
+    if (pieceBounds != null) {
+      repaint(pieceBounds);
+    }
+    if (t < 1) {
+      Rectangle from = getTileBounds(hop.from), to = getTileBounds(hop.to);
+      this.pieceBounds = new Rectangle(
+        (int) Math.round(from.x + (to.x - from.x) * t),
+        (int) Math.round(from.y + (to.y - from.y) * t),
+        boxSize,
+        boxSize
+      );
+      repaint(pieceBounds);
+    } else {
+      // Finish the step, showing the board after it
+      hops.poll();
+      this.pieceBounds = null;
+      repaintTiles(hop.before, hop.after);
+      if (hops.isEmpty()) {
+        timer.stop();
+        this.shown = game.getPosition();
+        repaintTiles(hop.after, shown);
+        repaintHint();
+      } else {
+        this.shown = hop.after;
+        this.hopStart = now;
       }
     }
-    repaint();
+    if (showStats) {
+      repaint(STATS_BOUNDS);
+    }
+  }
+
+  private void repaintTile(int index) {
+    if (Board.isValidIndex(index)) {
+      repaint(getTileBounds(index));
+    }
+  }
+
+  /**
+   * Gets the area of a tile, with room for the shadow and king offsets of
+   * the checker on it.
+   */
+  private Rectangle getTileBounds(int index) {
+    Point p = Board.toPoint(index);
+    return new Rectangle(offsetX + p.x * boxSize, offsetY + p.y * boxSize, boxSize, boxSize);
+  }
+
+  /**
+   * Works out the tile size and the board's position for the current size,
+   * rebuilding the background and sprites if the size changed.
+   */
+  private void layoutBoard() {
+    final int W = getWidth(), H = getHeight();
+    if (W == layoutWidth && H == layoutHeight) {
+      return;
+    }
+    this.layoutWidth = W;
+    this.layoutHeight = H;
+    final int DIM = W < H ? W : H;
+    this.boxSize = Math.max(0, (DIM - 2 * PADDING) / 8);
+    this.offsetX = (W - boxSize * 8) / 2;
+    this.offsetY = (H - boxSize * 8) / 2;
+    this.background = W > 0 && H > 0 ? createBackground(W, H) : null;
+    for (int id : PIECES) {
+      sprites[id] = boxSize > 0 ? createSprite(id) : null;
+    }
+  }
+
+  private BufferedImage createImage(int width, int height, int transparency) {
+    GraphicsConfiguration gc = getGraphicsConfiguration();
+    if (gc != null) {
+      return gc.createCompatibleImage(width, height, transparency);
+    }
+    return new BufferedImage(width, height, transparency == Transparency.OPAQUE ?
+        BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+  }
+
+  /**
+   * Draws the button's background, the tiles, the border and the rank and
+   * file labels into an image the size of the component.
+   */
+  private BufferedImage createBackground(int W, int H) {
+    BufferedImage image = createImage(W, H, Transparency.OPAQUE);
+    Graphics2D g = image.createGraphics();
+    try {
+      super.paintComponent(g);
+      g.setRenderingHint(
+        RenderingHints.KEY_ANTIALIASING,
+        RenderingHints.VALUE_ANTIALIAS_ON
+      );
+
+      // Draw checker board
+      g.setColor(Color.BLACK);
+      g.drawRect(offsetX - 1, offsetY - 1, boxSize * 8 + 1, boxSize * 8 + 1);
+      g.setColor(lightTile);
+      g.fillRect(offsetX, offsetY, boxSize * 8, boxSize * 8);
+      g.setColor(darkTile);
+      for (int y = 0; y < 8; y++) {
+        for (int x = (y + 1) % 2; x < 8; x += 2) {
+          g.fillRect(offsetX + x * boxSize, offsetY + y * boxSize, boxSize, boxSize);
+        }
+      }
+
+      // Set the color for the labels to white
+      g.setColor(Color.WHITE);
+      g.setFont(LABEL_FONT);
+      FontMetrics fm = g.getFontMetrics();
+
+      // Draw the labels on the top
+      String rows = "12345678";
+      for (int i = 0; i < 8; i++) {
+        String label = String.valueOf(rows.charAt(i));
+        int labelWidth = fm.stringWidth(label);
+        int labelX = offsetX + (i * boxSize) + (boxSize - labelWidth) / 2;
+        int labelY = offsetY - fm.getHeight() / 2; // move up by half the label height
+        g.drawString(label, labelX, labelY);
+      }
+
+      // Draw the labels on the left side
+      String cols = "ABCDEFGH";
+      for (int i = 0; i < 8; i++) {
+        String label = String.valueOf(cols.charAt(i));
+        int labelX = offsetX - fm.stringWidth(label) - PADDING / 2; // move left by label width + half padding
+        int labelY = offsetY + (i * boxSize) + (boxSize + fm.getAscent()) / 2;
+        g.drawString(label, labelX, labelY);
+      }
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * Draws one kind of checker, with its shadow and king highlights, into a
+   * transparent image one tile in size.
+   */
+  private BufferedImage createSprite(int id) {
+    BufferedImage image = createImage(boxSize, boxSize, Transparency.TRANSLUCENT);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setRenderingHint(
+        RenderingHints.KEY_ANTIALIASING,
+        RenderingHints.VALUE_ANTIALIAS_ON
+      );
+      final int CHECKER_SIZE = Math.max(0, boxSize - 2 * BOX_PADDING);
+      final int cx = BOX_PADDING, cy = BOX_PADDING;
+
+      // Black checker
+      if (id == Board.BLACK_CHECKER) {
+        g.setColor(Color.DARK_GRAY);
+        g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.BLACK);
+        g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+      }
+      // Black king
+      else if (id == Board.BLACK_KING) {
+        g.setColor(Color.DARK_GRAY);
+        g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.DARK_GRAY);
+        g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.BLACK);
+        g.fillOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
+      }
+      // White checker
+      else if (id == Board.WHITE_CHECKER) {
+        g.setColor(Color.LIGHT_GRAY);
+        g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.DARK_GRAY);
+        g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.WHITE);
+        g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.DARK_GRAY);
+        g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+      }
+      // White king
+      else if (id == Board.WHITE_KING) {
+        g.setColor(Color.LIGHT_GRAY);
+        g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.DARK_GRAY);
+        g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.LIGHT_GRAY);
+        g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.DARK_GRAY);
+        g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
+        g.setColor(Color.WHITE);
+        g.fillOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
+      }
+
+      // Any king (add some extra highlights)
+      if (id == Board.BLACK_KING || id == Board.WHITE_KING) {
+        g.setColor(KING_HIGHLIGHT);
+        g.drawOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
+        g.drawOval(cx + 1, cy, CHECKER_SIZE - 4, CHECKER_SIZE - 4);
+      }
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * Gets the area of the turn sign, wide enough for either player's message.
+   */
+  private Rectangle getSignBounds() {
+    FontMetrics fm = getFontMetrics(LABEL_FONT);
+    int width = Math.max(fm.stringWidth("Black's turn"), fm.stringWidth("White's turn")) +
+                2 * SIGN_PADDING;
+    int height = fm.getHeight() + SIGN_PADDING;
+    int rectY = offsetY + 8 * boxSize + 2 - height / 2;
+    return new Rectangle(getWidth() / 2 - width / 2 - 1, rectY - 1, width + 3, height + 3);
+  }
+
+  private Rectangle getGameOverBounds() {
+    int width = getFontMetrics(GAME_OVER_FONT).stringWidth(GAME_OVER);
+    return new Rectangle(getWidth() / 2 - width / 2 - 6, offsetY + boxSize * 4 - 17, width + 13,
+      33);
   }
 
   @Override
   public void paint(Graphics g) {
-    super.paint(g);
+    long start = System.nanoTime();
+    layoutBoard();
+    if (background == null) {
+      return;
+    }
+
+    // Take a new snapshot if the game changed without a call to update
+    Hop hop = hops.peek();
+    Position position = game.getPosition();
+    if (shown == null || (hop == null && !position.equals(shown))) {
+      boolean first = shown == null;
+      this.shown = position;
+      if (!first) {
+        repaint();
+      }
+    }
 
     Graphics2D g2d = (Graphics2D) g;
     g2d.setRenderingHint(
       RenderingHints.KEY_ANTIALIASING,
       RenderingHints.VALUE_ANTIALIAS_ON
     );
-    Game game = this.game.copy();
-
-    // Perform calculations
-    final int BOX_PADDING = 4;
-    final int W = getWidth(), H = getHeight();
-    final int DIM = W < H ? W : H, BOX_SIZE = (DIM - 2 * PADDING) / 8;
-    final int OFFSET_X = (W - BOX_SIZE * 8) / 2;
-    final int OFFSET_Y = (H - BOX_SIZE * 8) / 2;
-    final int CHECKER_SIZE = Math.max(0, BOX_SIZE - 2 * BOX_PADDING);
+    Rectangle clip = g.getClipBounds();
 
     // Draw checker board
-    g.setColor(Color.BLACK);
-    g.drawRect(OFFSET_X - 1, OFFSET_Y - 1, BOX_SIZE * 8 + 1, BOX_SIZE * 8 + 1);
-    g.setColor(lightTile);
-    g.fillRect(OFFSET_X, OFFSET_Y, BOX_SIZE * 8, BOX_SIZE * 8);
-    g.setColor(darkTile);
-    for (int y = 0; y < 8; y++) {
-      for (int x = (y + 1) % 2; x < 8; x += 2) {
-        g.fillRect(
-          OFFSET_X + x * BOX_SIZE,
-          OFFSET_Y + y * BOX_SIZE,
-          BOX_SIZE,
-          BOX_SIZE
-        );
-      }
-    }
+    g.drawImage(background, 0, 0, null);
 
     // Highlight the selected tile if valid
     if (Board.isValidPoint(selected)) {
-      g.setColor(selectionValid ? Color.GREEN : new Color(0, 0, 255));
+      g.setColor(selectionValid ? VALID_SELECTION : INVALID_SELECTION);
       g.fillRect(
-        OFFSET_X + selected.x * BOX_SIZE,
-        OFFSET_Y + selected.y * BOX_SIZE,
-        BOX_SIZE,
-        BOX_SIZE
+        offsetX + selected.x * boxSize,
+        offsetY + selected.y * boxSize,
+        boxSize,
+        boxSize
       );
     }
 
-    // Draw the checkers
-    Board b = game.getBoard();
-    for (int y = 0; y < 8; y++) {
-      int cy = OFFSET_Y + y * BOX_SIZE + BOX_PADDING;
-      for (int x = (y + 1) % 2; x < 8; x += 2) {
-        int id = b.get(x, y);
-
-        // Empty, just skip
-        if (id == Board.EMPTY) {
-          continue;
-        }
-
-        int cx = OFFSET_X + x * BOX_SIZE + BOX_PADDING;
-
-        // Black checker
-        if (id == Board.BLACK_CHECKER) {
-          g.setColor(Color.DARK_GRAY);
-          g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.LIGHT_GRAY);
-          g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.BLACK);
-          g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.LIGHT_GRAY);
-          g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-        }
-        // Black king
-        else if (id == Board.BLACK_KING) {
-          g.setColor(Color.DARK_GRAY);
-          g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.LIGHT_GRAY);
-          g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.DARK_GRAY);
-          g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.LIGHT_GRAY);
-          g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.BLACK);
-          g.fillOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
-        }
-        // White checker
-        else if (id == Board.WHITE_CHECKER) {
-          g.setColor(Color.LIGHT_GRAY);
-          g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.DARK_GRAY);
-          g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.WHITE);
-          g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.DARK_GRAY);
-          g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-        }
-        // White king
-        else if (id == Board.WHITE_KING) {
-          g.setColor(Color.LIGHT_GRAY);
-          g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.DARK_GRAY);
-          g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.LIGHT_GRAY);
-          g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.DARK_GRAY);
-          g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-          g.setColor(Color.WHITE);
-          g.fillOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
-        }
-
-        // Any king (add some extra highlights)
-        if (id == Board.BLACK_KING || id == Board.WHITE_KING) {
-          g.setColor(new Color(255, 240, 0));
-          g.drawOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
-          g.drawOval(cx + 1, cy, CHECKER_SIZE - 4, CHECKER_SIZE - 4);
-        }
+    // Draw the checkers, with the one being animated between its tiles
+    int occupied = shown.getOccupiedBits() & (hop == null ? ~0 : ~(1 << hop.from));
+    while (occupied != 0) {
+      int i = Integer.numberOfTrailingZeros(occupied);
+      occupied &= occupied - 1;
+      int x = offsetX + Board.getX(i) * boxSize, y = offsetY + Board.getY(i) * boxSize;
+      if (clip == null || clip.intersects(x, y, boxSize, boxSize)) {
+        g.drawImage(sprites[shown.get(i)], x, y, null);
+      }
+    }
 
-        // Set the color for the labels to white
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("SansSerif", Font.BOLD, 12));
-
-        // Variables for label positioning
-        int xOffset = OFFSET_X;
-        int yOffset = OFFSET_Y;
-        int boxSize = (Math.min(getWidth(), getHeight()) - 2 * PADDING) / 8;
-
-        // Draw the labels on the top
-        String rows = "12345678";
-        for (int i = 0; i < 8; i++) {
-          String label = String.valueOf(rows.charAt(i));
-          int labelWidth = g.getFontMetrics().stringWidth(label);
-          int labelX = xOffset + (i * boxSize) + (boxSize - labelWidth) / 2;
-          int labelY = yOffset - g.getFontMetrics().getHeight() / 2; // move up by half the label height
-          g.drawString(label, labelX, labelY);
-        }
+    if (hop != null && pieceBounds != null) {
+      g.drawImage(sprites[hop.before.get(hop.from)], pieceBounds.x, pieceBounds.y, null);
+    }
 
-        // Draw the labels on the left side
-        String cols = "ABCDEFGH";
-        for (int i = 0; i < 8; i++) {
-          String label = String.valueOf(cols.charAt(i));
-          int labelX =
-            xOffset - g.getFontMetrics().stringWidth(label) - PADDING / 2; // move left by label width + half padding
-          int labelY =
-            yOffset +
-            (i * boxSize) +
-            (boxSize + g.getFontMetrics().getAscent()) /
-            2;
-          g.drawString(label, labelX, labelY);
-        }
-      }
+    if (hop == null) {
+      paintHint(g2d);
     }
+    paintSigns(g);
+    paintStats(g, System.nanoTime() - start);
+    PAINT.stop(start);
+  }
+
+  /**
+   * Draws the turn sign and, if the game is over, the game over sign.
+   */
+  private void paintSigns(Graphics g) {
+    final int W = getWidth();
 
     // Draw the player turn sign
-    String msg = game.isP1Turn() ? "Black's turn" : "White's turn";
-    Font font = new Font("SansSerif", Font.BOLD, 12); // Choose a more visible font size and style
-    g.setFont(font);
+    boolean isP1Turn = game.isP1Turn();
+    String msg = isP1Turn ? "Black's turn" : "White's turn";
+    g.setFont(LABEL_FONT);
 
     // Calculate the width and height of the text with padding
-    int padding = 10; // Padding around the text
     FontMetrics fm = g.getFontMetrics();
-    int width = fm.stringWidth(msg) + 2 * padding; // Width with padding
-    int height = fm.getHeight() + padding; // Height with padding
-
-    // Define the background and text colors
-    Color back = game.isP1Turn() ? Color.BLACK : Color.WHITE;
-    Color front = game.isP1Turn() ? Color.WHITE : Color.BLACK;
+    int width = fm.stringWidth(msg) + 2 * SIGN_PADDING; // Width with padding
+    int height = fm.getHeight() + SIGN_PADDING; // Height with padding
 
     // Set the color and draw the background rectangle
-    g.setColor(back);
+    g.setColor(isP1Turn ? Color.BLACK : Color.WHITE);
     int rectX = W / 2 - width / 2; // X-coordinate for the rectangle
-    int rectY = OFFSET_Y + 8 * BOX_SIZE + 2 - height / 2; // Y-coordinate for the rectangle, centered
+    int rectY = offsetY + 8 * boxSize + 2 - height / 2; // Y-coordinate for the rectangle, centered
     g.fillRect(rectX, rectY, width, height);
 
     // Draw a border around the sign to make it stand out
@@ -279,28 +746,99 @@ public class CheckerBoard extends JButton {
     g.drawRect(rectX, rectY, width, height);
 
     // Set the text color and draw the string
-    g.setColor(front);
-    int textX = W / 2 - width / 2 + padding; // X-coordinate for the text, with padding
+    g.setColor(isP1Turn ? Color.WHITE : Color.BLACK);
+    int textX = W / 2 - width / 2 + SIGN_PADDING; // X-coordinate for the text, with padding
     int textY = rectY + fm.getAscent() + (height - fm.getHeight()) / 2; // Y-coordinate for the text, vertically
     // centered with padding
     g.drawString(msg, textX, textY);
 
     // Draw a game over sign
     if (isGameOver) {
-      g.setFont(new Font("Arial", Font.BOLD, 20));
-      msg = "Game Over!";
-      width = g.getFontMetrics().stringWidth(msg);
-      g.setColor(new Color(240, 240, 255));
+      g.setFont(GAME_OVER_FONT);
+      width = g.getFontMetrics().stringWidth(GAME_OVER);
+      g.setColor(GAME_OVER_BACKGROUND);
       g.fillRoundRect(
         W / 2 - width / 2 - 5,
-        OFFSET_Y + BOX_SIZE * 4 - 16,
+        offsetY + boxSize * 4 - 16,
         width + 10,
         30,
         10,
         10
       );
       g.setColor(Color.RED);
-      g.drawString(msg, W / 2 - width / 2, OFFSET_Y + BOX_SIZE * 4 + 7);
+      g.drawString(GAME_OVER, W / 2 - width / 2, offsetY + boxSize * 4 + 7);
+    }
+  }
+
+  /**
+   * Outlines the tiles the engine's best move starts and ends on, and writes
+   * the move, its score and the depth searched in the top-right corner.
+   */
+  private void paintHint(Graphics2D g) {
+    if (!showHints || hint == null || !hint.hasMove()) {
+      return;
+    }
+    long move = hint.getBestMove();
+    Stroke stroke = g.getStroke();
+    g.setColor(HINT);
+    g.setStroke(HINT_STROKE);
+    for (int index : new int[] {Move.getStartIndex(move), Move.getEndIndex(move)}) {
+      Rectangle r = getTileBounds(index);
+      g.drawRect(r.x + 2, r.y + 2, r.width - 4, r.height - 4);
+    }
+    g.setStroke(stroke);
+
+    // Squares are numbered from 1, as in PDN
+    Rectangle r = getHintBounds();
+    String text = String.format("Hint %d%c%d  %+.2f  depth %d", Move.getStartIndex(move) + 1,
+      Move.isSkip(move) ? 'x' : '-', Move.getEndIndex(move) + 1, hint.getScore() / 100.0,
+      hint.getDepth());
+    g.setColor(STATS_BACKGROUND);
+    g.fillRect(r.x, r.y, r.width, r.height);
+    g.setColor(Color.WHITE);
+    g.setFont(LABEL_FONT);
+    g.drawString(text, r.x + 6, r.y + 16);
+  }
+
+  /**
+   * Counts a paint and, if the overlay is on, draws the paints in the last
+   * second and the average paint time in the top-left corner.
+   */
+  private void paintStats(Graphics g, long nanos) {
+    this.paintNanos = paintNanos == 0 ? nanos : paintNanos * 0.9 + nanos * 0.1;
+    this.paints++;
+    long now = System.nanoTime();
+    if (now - statsStart >= 1_000_000_000L) {
+      this.fps = paints;
+      this.paints = 0;
+      this.statsStart = now;
+    }
+    if (!showStats) {
+      return;
+    }
+    g.setColor(STATS_BACKGROUND);
+    g.fillRect(STATS_BOUNDS.x, STATS_BOUNDS.y, STATS_BOUNDS.width, STATS_BOUNDS.height);
+    g.setColor(Color.WHITE);
+    g.setFont(LABEL_FONT);
+    g.drawString(String.format("%d fps, paint %.2f ms", fps, paintNanos / 1e6), 6, 16);
+  }
+
+  /**
+   * One step of a move being animated: the positions before and after it and
+   * the tiles the checker moves between.
+   */
+  private static class Hop {
+
+    private final Position before;
+    private final Position after;
+    private final int from;
+    private final int to;
+
+    Hop(Position before, Position after, int from, int to) {
+      this.before = before;
+      this.after = after;
+      this.from = from;
+      this.to = to;
     }
   }
 }